@@ -0,0 +1,230 @@
+package net.praqma.hudson;
+
+import hudson.Extension;
+import hudson.model.AbstractProject;
+import hudson.model.Cause;
+import hudson.model.Item;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.RootAction;
+import hudson.model.StringParameterValue;
+import hudson.security.csrf.CrumbExclusion;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import jenkins.model.Jenkins;
+import net.praqma.clearcase.exceptions.UnableToInitializeEntityException;
+import net.praqma.clearcase.exceptions.UnableToLoadEntityException;
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Component;
+import net.praqma.clearcase.ucm.entities.Project;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.hudson.scm.CCUCMScm;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Lets ClearCase tell Jenkins about a new {@link Baseline}, typically from a <code>mkbl</code> post-operation trigger. The jobs
+ * that would find the {@link Baseline} when polling are scheduled at once, instead of waiting for their next poll.
+ * <p>
+ * Poll self jobs get the {@link Baseline} as the <code>baseline</code> parameter, so it is built without listing the
+ * {@link Stream}. Jobs in the other polling modes are scheduled without it and find it as if they had polled.
+ */
+@Extension
+public class BaselineTriggerAction implements RootAction {
+
+    private static final Logger logger = Logger.getLogger(BaselineTriggerAction.class.getName());
+
+    public static final String URL_NAME = "ccucm-trigger";
+
+    /**
+     * The name of the build parameter read by {@link CCUCMScm#getBaselineValue}
+     */
+    public static final String PARAMETER = "baseline";
+
+    /**
+     * Schedule the jobs watching a new {@link Baseline}. The {@link Stream}, {@link Component} and promotion level are looked
+     * up in ClearCase on the master, unless they are given.
+     *
+     * @param baseline The fully qualified name of the {@link Baseline}
+     * @param stream The fully qualified name of the {@link Stream} of the {@link Baseline}, optional
+     * @param component The fully qualified name of the {@link Component} of the {@link Baseline}, optional
+     * @param level The promotion level of the {@link Baseline}, optional
+     * @return The names of the scheduled jobs, as plain text
+     */
+    @RequirePOST
+    public HttpResponse doBuild(@QueryParameter String baseline, @QueryParameter String stream, @QueryParameter String component, @QueryParameter String level) {
+        Jenkins.getInstance().checkPermission(Jenkins.READ);
+
+        if (StringUtils.isBlank(baseline)) {
+            return HttpResponses.error(HttpServletResponse.SC_BAD_REQUEST, "The baseline parameter is required");
+        }
+
+        final String fqn;
+        String streamFqn;
+        String componentFqn = null;
+        Project.PromotionLevel plevel = null;
+        try {
+            fqn = Baseline.get(baseline).getFullyQualifiedName();
+            if (StringUtils.isBlank(stream)) {
+                Baseline bl = Baseline.get(fqn).load(true);
+                streamFqn = bl.getStream().getFullyQualifiedName();
+                componentFqn = bl.getComponent().getFullyQualifiedName();
+                plevel = bl.getPromotionLevel();
+            } else {
+                streamFqn = Stream.get(stream).getFullyQualifiedName();
+                if (!StringUtils.isBlank(component)) {
+                    componentFqn = Component.get(component).getFullyQualifiedName();
+                }
+                if (!StringUtils.isBlank(level)) {
+                    plevel = Project.PromotionLevel.valueOf(level.trim().toUpperCase());
+                }
+            }
+        } catch (UnableToInitializeEntityException | UnableToLoadEntityException | IllegalArgumentException e) {
+            return HttpResponses.error(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+
+        final List<String> scheduled = new ArrayList<>();
+        for (AbstractProject<?, ?> project : Jenkins.getInstance().getAllItems(AbstractProject.class)) {
+            if (!(project.getScm() instanceof CCUCMScm) || project.isDisabled() || !project.hasPermission(Item.BUILD)) {
+                continue;
+            }
+
+            CCUCMScm scm = (CCUCMScm) project.getScm();
+            if (!scm.isWatching(streamFqn, componentFqn, plevel)) {
+                continue;
+            }
+
+            Cause cause = new BaselineCause(fqn);
+            boolean ok;
+            if (scm.acceptsBaselineParameter()) {
+                ok = project.scheduleBuild2(0, cause, new ParametersAction(getParameterValues(project, fqn), Collections.singleton(PARAMETER))) != null;
+            } else {
+                ok = project.scheduleBuild2(0, cause) != null;
+            }
+
+            if (ok) {
+                logger.info(String.format("Scheduled %s for the new baseline %s", project.getFullName(), fqn));
+                scheduled.add(project.getFullName());
+            }
+        }
+
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
+                rsp.setStatus(HttpServletResponse.SC_OK);
+                rsp.setContentType("text/plain;charset=UTF-8");
+                PrintWriter w = rsp.getWriter();
+                if (scheduled.isEmpty()) {
+                    w.println("No jobs watch " + fqn);
+                }
+                for (String job : scheduled) {
+                    w.println("Scheduled " + job);
+                }
+            }
+        };
+    }
+
+    /**
+     * A build scheduled with parameters gets no default values, so they are added here, along with the {@link Baseline}.
+     */
+    private static List<ParameterValue> getParameterValues(AbstractProject<?, ?> project, String baseline) {
+        List<ParameterValue> values = new ArrayList<>();
+        ParametersDefinitionProperty property = project.getProperty(ParametersDefinitionProperty.class);
+        if (property != null) {
+            for (ParameterDefinition definition : property.getParameterDefinitions()) {
+                if (PARAMETER.equals(definition.getName())) {
+                    continue;
+                }
+                ParameterValue value = definition.getDefaultParameterValue();
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+        }
+        values.add(new StringParameterValue(PARAMETER, baseline));
+        return values;
+    }
+
+    @Override
+    public String getIconFileName() {
+        /* Not shown in the side panel */
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "ClearCase UCM baseline trigger";
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    /**
+     * The cause of a build scheduled for a new {@link Baseline}
+     */
+    public static class BaselineCause extends Cause {
+
+        private final String baseline;
+
+        public BaselineCause(String baseline) {
+            this.baseline = baseline;
+        }
+
+        public String getBaseline() {
+            return baseline;
+        }
+
+        @Override
+        public String getShortDescription() {
+            return "Started by the new baseline " + baseline;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BaselineCause && baseline.equals(((BaselineCause) o).baseline);
+        }
+
+        @Override
+        public int hashCode() {
+            return baseline.hashCode();
+        }
+    }
+
+    /**
+     * ClearCase triggers are scripts authenticating with an API token, so they cannot get a crumb first. Requests using the
+     * session of a browser still need a crumb.
+     */
+    @Extension
+    public static class TriggerCrumbExclusion extends CrumbExclusion {
+
+        @Override
+        public boolean process(HttpServletRequest req, HttpServletResponse resp, FilterChain chain) throws IOException, ServletException {
+            String path = req.getPathInfo();
+            String authorization = req.getHeader("Authorization");
+            if (path != null && path.startsWith("/" + URL_NAME + "/") && authorization != null && authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+                chain.doFilter(req, resp);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -106,6 +106,11 @@ public class CCUCMBuildAction implements Action {
 
     private List<Activity> activities;
 
+    /**
+     * The time spent in each phase of the build
+     */
+    private PhaseTimings timings = new PhaseTimings();
+
 	public CCUCMBuildAction( Stream stream, Component component ) {
 		this.stream = stream;
 		this.component = component;
@@ -352,6 +357,34 @@ public class CCUCMBuildAction implements Action {
         this.activities = activities;
     }
 
+    public PhaseTimings getTimings() {
+        /* Builds made before the timings were recorded */
+        if (timings == null) {
+            timings = new PhaseTimings();
+        }
+        return timings;
+    }
+
+    /**
+     * Record a phase of the build that started at the given time and ends now
+     * @param phase The name of the phase
+     * @param start The time the phase started, as given by {@link System#currentTimeMillis()}
+     */
+    public void time( String phase, long start ) {
+        PhaseStatistics.getInstance().record( phase, getTimings().record( phase, start ) );
+    }
+
+    /**
+     * Add the phases timed elsewhere, typically on the slave
+     * @param timings The timings, may be null
+     */
+    public void addTimings( PhaseTimings timings ) {
+        if( timings != null ) {
+            getTimings().merge( timings );
+            PhaseStatistics.getInstance().record( timings );
+        }
+    }
+
     @Override
     public String toString() {
         return stream + ", " + component + ", " + promotionLevel + " = " + baseline;
@@ -0,0 +1,109 @@
+package net.praqma.hudson;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Histograms of the time spent in each phase, by all jobs since the master started.
+ */
+public class PhaseStatistics {
+
+    /**
+     * The upper bounds of the histogram buckets in milliseconds. The last bucket holds everything slower.
+     */
+    private static final long[] BOUNDS = { 100, 1000, 10000, 60000, 600000 };
+
+    private static final PhaseStatistics instance = new PhaseStatistics();
+
+    private final Map<String, Histogram> histograms = new TreeMap<>();
+
+    public static PhaseStatistics getInstance() {
+        return instance;
+    }
+
+    public synchronized void record(String phase, long duration) {
+        Histogram histogram = histograms.get(phase);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(phase, histogram);
+        }
+        histogram.add(duration);
+    }
+
+    /**
+     * Record a phase that started at the given time and ends now
+     * @param phase The name of the phase
+     * @param start The time the phase started, as given by {@link System#currentTimeMillis()}
+     */
+    public void recordSince(String phase, long start) {
+        record(phase, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Record all the phases of a build
+     * @param timings The timings of the build
+     */
+    public void record(PhaseTimings timings) {
+        for (Map.Entry<String, Long> phase : timings.getPhases().entrySet()) {
+            record(phase.getKey(), phase.getValue());
+        }
+    }
+
+    public synchronized void clear() {
+        histograms.clear();
+    }
+
+    public synchronized JSONObject toJSON() {
+        JSONArray bounds = new JSONArray();
+        for (long bound : BOUNDS) {
+            bounds.add(bound);
+        }
+
+        JSONObject phases = new JSONObject();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            phases.put(entry.getKey(), entry.getValue().toJSON());
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("bucketBoundsMillis", bounds);
+        json.put("phases", phases);
+        return json;
+    }
+
+    private static class Histogram {
+        private long count;
+        private long total;
+        private long max;
+        private final long[] buckets = new long[BOUNDS.length + 1];
+
+        void add(long duration) {
+            count++;
+            total += duration;
+            max = Math.max(max, duration);
+
+            int i = 0;
+            while (i < BOUNDS.length && duration > BOUNDS[i]) {
+                i++;
+            }
+            buckets[i]++;
+        }
+
+        JSONObject toJSON() {
+            JSONArray counts = new JSONArray();
+            for (long bucket : buckets) {
+                counts.add(bucket);
+            }
+
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("totalMillis", total);
+            json.put("meanMillis", count == 0 ? 0 : total / count);
+            json.put("maxMillis", max);
+            json.put("buckets", counts);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package net.praqma.hudson;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+
+import java.io.IOException;
+import java.util.Map;
+
+import jenkins.model.Jenkins;
+import net.praqma.hudson.remoting.ViewPool;
+import net.praqma.hudson.scm.PollingCache;
+import net.praqma.hudson.scm.ViewPoolWork;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Exposes the {@link PhaseStatistics} of all jobs as JSON, at <code>/ccucm-stats/</code>.
+ */
+@Extension
+public class PhaseStatisticsAction implements RootAction {
+
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.READ);
+
+        PollingCache cache = PollingCache.getInstance();
+        JSONObject pollingCache = new JSONObject();
+        pollingCache.put("size", cache.getSize());
+        pollingCache.put("hits", cache.getHits());
+        pollingCache.put("joined", cache.getJoined());
+        pollingCache.put("misses", cache.getMisses());
+
+        JSONObject viewPool = new JSONObject();
+        for (Map.Entry<String, ViewPool.Occupancy> entry : ViewPoolWork.getOccupancy().entrySet()) {
+            JSONObject o = new JSONObject();
+            o.put("ready", entry.getValue().getReady());
+            o.put("wanted", entry.getValue().getWanted());
+            o.put("provisioned", entry.getValue().getProvisioned());
+            o.put("refreshed", entry.getValue().getRefreshed());
+            o.put("removed", entry.getValue().getRemoved());
+            viewPool.put(entry.getKey(), o);
+        }
+
+        JSONObject json = PhaseStatistics.getInstance().toJSON();
+        json.put("pollingCache", pollingCache);
+        json.put("viewPool", viewPool);
+
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(json.toString(2));
+    }
+
+    @Override
+    public String getIconFileName() {
+        /* Not shown in the side panel */
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "ClearCase UCM statistics";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ccucm-stats";
+    }
+}
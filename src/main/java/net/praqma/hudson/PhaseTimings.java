@@ -0,0 +1,60 @@
+package net.praqma.hudson;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The time spent in each phase of a build, in milliseconds, in the order the phases were first recorded. A phase recorded
+ * more than once accumulates its time. The timings can be recorded on a slave and sent back to the master.
+ */
+public class PhaseTimings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LinkedHashMap<String, Long> phases = new LinkedHashMap<>();
+
+    /**
+     * Record the time spent in a phase
+     * @param phase The name of the phase
+     * @param start The time the phase started, as given by {@link System#currentTimeMillis()}
+     * @return The time spent in milliseconds
+     */
+    public synchronized long record(String phase, long start) {
+        long duration = System.currentTimeMillis() - start;
+        add(phase, duration);
+        return duration;
+    }
+
+    private void add(String phase, long duration) {
+        Long current = phases.get(phase);
+        phases.put(phase, current == null ? duration : current + duration);
+    }
+
+    /**
+     * Add the phases of other timings to these
+     * @param timings The other timings, may be null
+     */
+    public synchronized void merge(PhaseTimings timings) {
+        if (timings == null) {
+            return;
+        }
+        for (Map.Entry<String, Long> phase : timings.getPhases().entrySet()) {
+            add(phase.getKey(), phase.getValue());
+        }
+    }
+
+    public synchronized Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+    }
+
+    public synchronized boolean isEmpty() {
+        return phases.isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return phases.toString();
+    }
+}
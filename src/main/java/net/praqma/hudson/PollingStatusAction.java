@@ -0,0 +1,165 @@
+package net.praqma.hudson;
+
+import hudson.Extension;
+import hudson.model.AbstractProject;
+import hudson.model.Action;
+import hudson.model.Item;
+import hudson.model.TransientProjectActionFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import jenkins.model.Jenkins;
+import net.praqma.clearcase.exceptions.UnableToInitializeEntityException;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.hudson.scm.CCUCMScm;
+import net.praqma.hudson.scm.StreamActivityTracker;
+import net.praqma.hudson.scm.StreamCircuitBreaker;
+import net.praqma.hudson.scm.StreamTopologyCache;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Shows the polling state of a job using the {@link CCUCMScm}, and lets the user refresh it.
+ */
+public class PollingStatusAction implements Action {
+
+    private static final Logger logger = Logger.getLogger(PollingStatusAction.class.getName());
+
+    private final AbstractProject<?, ?> project;
+
+    public PollingStatusAction(AbstractProject<?, ?> project) {
+        this.project = project;
+    }
+
+    public AbstractProject<?, ?> getProject() {
+        return project;
+    }
+
+    /**
+     * @return The fully qualified name of the polled {@link Stream}, null if it is not valid
+     */
+    public String getStream() {
+        if (!(project.getScm() instanceof CCUCMScm)) {
+            return null;
+        }
+
+        try {
+            return Stream.get(((CCUCMScm) project.getScm()).getStream()).getFullyQualifiedName();
+        } catch (UnableToInitializeEntityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The cached related streams of the polled {@link Stream}, keyed by polling type
+     */
+    public Map<String, StreamTopologyCache.Topology> getTopologies() {
+        String stream = getStream();
+        if (stream == null) {
+            return Collections.emptyMap();
+        }
+        return StreamTopologyCache.getInstance().getTopologies(stream);
+    }
+
+    /**
+     * @return The activity of the streams polled by the job, as seen by adaptive polling
+     */
+    public List<StreamActivityTracker.Activity> getActivity() {
+        CCUCMScm.CCUCMScmDescriptor desc = Jenkins.getInstance().getDescriptorByType(CCUCMScm.CCUCMScmDescriptor.class);
+        return StreamActivityTracker.getInstance().getActivity(project.getFullName(), desc.getAdaptivePollingMin() * 60000L, desc.getAdaptivePollingMax() * 60000L);
+    }
+
+    /**
+     * @return The fully qualified names of the cached related streams of the polled {@link Stream}
+     */
+    private Set<String> getRelatedStreams() {
+        Set<String> streams = new LinkedHashSet<>();
+        for (StreamTopologyCache.Topology topology : getTopologies().values()) {
+            streams.addAll(topology.getStreams());
+        }
+        return streams;
+    }
+
+    /**
+     * @return The circuit breakers of the related streams that have failed
+     */
+    public List<StreamCircuitBreaker.Status> getBreakers() {
+        return StreamCircuitBreaker.getInstance().getStatus(getRelatedStreams());
+    }
+
+    public boolean isAdaptivePolling() {
+        return Jenkins.getInstance().getDescriptorByType(CCUCMScm.CCUCMScmDescriptor.class).getAdaptivePolling();
+    }
+
+    /**
+     * Forget the related streams of the polled {@link Stream}, they are looked up again on the next poll.
+     * @return A redirect to the status page
+     */
+    @RequirePOST
+    public HttpResponse doRefreshTopology() {
+        project.checkPermission(Item.CONFIGURE);
+
+        String stream = getStream();
+        if (stream != null) {
+            logger.info(String.format("Refreshing the stream topology of %s for %s", stream, project.getFullName()));
+            StreamTopologyCache.getInstance().invalidate(stream);
+        }
+        return HttpResponses.redirectToDot();
+    }
+
+    /**
+     * Close the circuit breaker of a related stream, so it is scanned on the next poll. Only the breakers of the related
+     * streams of this job can be closed, as the breakers are shared by all jobs.
+     * @param stream The fully qualified name of the stream
+     * @return A redirect to the status page
+     */
+    @RequirePOST
+    public HttpResponse doResetBreaker(@QueryParameter String stream) {
+        project.checkPermission(Item.CONFIGURE);
+
+        if (stream == null || !getRelatedStreams().contains(stream)) {
+            return HttpResponses.error(HttpServletResponse.SC_BAD_REQUEST, "Not a related stream of " + project.getFullName() + ": " + stream);
+        }
+
+        logger.info(String.format("Resetting the circuit breaker of %s for %s", stream, project.getFullName()));
+        StreamCircuitBreaker.getInstance().reset(stream);
+        return HttpResponses.redirectToDot();
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "clipboard.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "ClearCase UCM polling";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ccucm-polling";
+    }
+
+    @Extension
+    public static class Factory extends TransientProjectActionFactory {
+
+        @Override
+        public Collection<? extends Action> createFor(AbstractProject target) {
+            if (target.getScm() instanceof CCUCMScm) {
+                return Collections.singleton(new PollingStatusAction(target));
+            }
+            return Collections.emptyList();
+        }
+    }
+}
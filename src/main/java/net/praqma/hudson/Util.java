@@ -4,14 +4,22 @@ import edu.umd.cs.findbugs.annotations.*;
 import hudson.FilePath;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
+import hudson.remoting.RemoteOutputStream;
 
 import java.io.*;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import net.praqma.clearcase.cleartool.Cleartool;
 import net.praqma.clearcase.exceptions.ClearCaseException;
 import net.praqma.clearcase.exceptions.ViewException;
 import net.praqma.clearcase.ucm.entities.Activity;
@@ -24,8 +32,10 @@ import net.praqma.clearcase.ucm.view.UCMView;
 import net.praqma.clearcase.ucm.view.SnapshotView.Components;
 import net.praqma.clearcase.ucm.view.SnapshotView.LoadRules2;
 import net.praqma.clearcase.ucm.view.UpdateView;
+import net.praqma.hudson.exception.ChangeLogWriteException;
 import net.praqma.hudson.exception.ScmException;
 import net.praqma.hudson.remoting.CreateChangeSetRemote;
+import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.SystemUtils;
 
 @SuppressFBWarnings("")
@@ -41,61 +51,277 @@ public abstract class Util {
 		}
 	}
     
-    public static String createChangelog(AbstractBuild<?, ?> build, List<Activity> activities, Baseline bl, boolean trimmed, File viewRoot, List<String> readonly, boolean ignoreReadOnly) throws IOException, InterruptedException {
-        return Util.createChangelog(build, activities, bl, trimmed, viewRoot, readonly, ignoreReadOnly, true);
+    /**
+     * Write the change log straight to the file as it is generated, so it is never held in memory as a whole.
+     *
+     * @param changelogFile The change log file, written as UTF-8
+     * @param useSlaves If true, the change log is generated in the workspace and streamed back
+     * @param threads The number of activities whose versions are resolved at the same time, see {@link CreateChangeSetRemote#setThreads(int)}
+     * @throws ChangeLogWriteException Thrown when the change log file could not be written
+     * @throws IOException Thrown when the change log could not be generated
+     */
+    public static void writeChangelog(AbstractBuild<?, ?> build, List<Activity> activities, Baseline bl, boolean trimmed, File viewRoot, List<String> readonly, boolean ignoreReadOnly, boolean useSlaves, int threads, File changelogFile ) throws IOException, InterruptedException {
+        FileOutputStream file;
+        try {
+            file = new FileOutputStream( changelogFile );
+        } catch( IOException e ) {
+            throw new ChangeLogWriteException( "Unable to open the change log file " + changelogFile, e );
+        }
+
+        ChangeLogOutputStream out = new ChangeLogOutputStream( new BufferedOutputStream( file ) );
+        try {
+            CreateChangeSetRemote set = new CreateChangeSetRemote(activities, bl, trimmed, viewRoot, readonly, ignoreReadOnly);
+            set.setThreads( threads );
+            if(useSlaves) {
+                set.setOutput( new RemoteOutputStream( out ) );
+                build.getWorkspace().act( set );
+            } else {
+                set.setOutput( out );
+                set.invoke( null, null );
+            }
+            out.close();
+        } catch( IOException e ) {
+            /* A failing write reaches the agent as a failure of the remote stream, so the cause is told by the file */
+            if( out.failure != null ) {
+                throw new ChangeLogWriteException( "Unable to write the change log file " + changelogFile, out.failure );
+            }
+            throw e;
+        } finally {
+            try {
+                out.close();
+            } catch( IOException e ) {
+                logger.log( Level.FINE, "Unable to close the change log file " + changelogFile, e );
+            }
+        }
     }
 
-    public static String createChangelog(AbstractBuild<?, ?> build, List<Activity> activities, Baseline bl, boolean trimmed, File viewRoot, List<String> readonly, boolean ignoreReadOnly, boolean useSlaves ) throws IOException, InterruptedException {
-        if(useSlaves) {
-            return build.getWorkspace().act(new CreateChangeSetRemote(activities, bl, trimmed, viewRoot, readonly, ignoreReadOnly));
-        } else {
-          CreateChangeSetRemote set = new CreateChangeSetRemote(activities, bl, trimmed, viewRoot, readonly, ignoreReadOnly);
-          return set.invoke(null, null);            
+    /**
+     * Remembers the first failure of the change log file
+     */
+    private static class ChangeLogOutputStream extends FilterOutputStream {
+        private volatile IOException failure;
+
+        ChangeLogOutputStream( OutputStream out ) {
+            super( out );
+        }
+
+        @Override
+        public void write( int b ) throws IOException {
+            try {
+                out.write( b );
+            } catch( IOException e ) {
+                throw failed( e );
+            }
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len ) throws IOException {
+            try {
+                out.write( b, off, len );
+            } catch( IOException e ) {
+                throw failed( e );
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                out.flush();
+            } catch( IOException e ) {
+                throw failed( e );
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } catch( IOException e ) {
+                throw failed( e );
+            }
+        }
+
+        private IOException failed( IOException e ) {
+            if( failure == null ) {
+                failure = e;
+            }
+            return e;
+        }
+    }
+
+    /**
+     * The most {@link Version}s described by one cleartool command in {@link #blame(Collection)}
+     */
+    public static final int BLAME_CHUNK = 100;
+
+    /**
+     * The longest command line {@link #blame(Collection)} builds, well within the limit of Windows
+     */
+    public static final int BLAME_COMMAND_LENGTH = 7000;
+
+    /**
+     * Find the owners of {@link Version}s in bulk, with one cleartool describe per chunk instead of one per {@link Version}.
+     * A chunk that cannot be described as a whole is described one {@link Version} at a time, and {@link Version}s that
+     * still fail are left out.
+     *
+     * @param versions The {@link Version}s
+     * @return The fully qualified name of every {@link Version} mapped to its owner
+     */
+    public static Map<String, String> blame( Collection<Version> versions ) {
+        Map<String, String> owners = new HashMap<>();
+        List<List<String>> chunks = getBlameChunks( versions );
+        int size = 0;
+        for( List<String> chunk : chunks ) {
+            blame( chunk, owners );
+            size += chunk.size();
+        }
+
+        logger.fine( String.format( "Found the owners of %s of %s versions", owners.size(), size ) );
+        return owners;
+    }
+
+    /**
+     * Split the {@link Version}s into the chunks {@link #blame(Collection)} describes, each with at most {@link #BLAME_CHUNK}
+     * {@link Version}s and a command line of at most {@link #BLAME_COMMAND_LENGTH} characters. A {@link Version} whose name
+     * alone is longer gets a chunk of its own.
+     *
+     * @param versions The {@link Version}s
+     * @return The fully qualified names of the {@link Version}s in chunks, without duplicates and in order
+     */
+    public static List<List<String>> getBlameChunks( Collection<Version> versions ) {
+        Set<String> names = new LinkedHashSet<>();
+        for( Version v : versions ) {
+            names.add( v.getFullyQualifiedName() );
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int length = 0;
+        for( String name : names ) {
+            if( !chunk.isEmpty() && ( chunk.size() >= BLAME_CHUNK || length + name.length() + 3 > BLAME_COMMAND_LENGTH ) ) {
+                chunks.add( chunk );
+                chunk = new ArrayList<>();
+                length = 0;
+            }
+            chunk.add( name );
+            length += name.length() + 3;
+        }
+        if( !chunk.isEmpty() ) {
+            chunks.add( chunk );
+        }
+
+        return chunks;
+    }
+
+    private static void blame( List<String> chunk, Map<String, String> owners ) {
+        StringBuilder cmd = new StringBuilder( "describe -fmt %u\\n" );
+        for( String name : chunk ) {
+            cmd.append( " \"" ).append( name ).append( "\"" );
+        }
+
+        try {
+            List<String> lines = Cleartool.run( cmd.toString() ).stdoutList;
+            if( lines.size() == chunk.size() ) {
+                for( int i = 0; i < chunk.size(); i++ ) {
+                    owners.put( chunk.get( i ), lines.get( i ).trim() );
+                }
+                return;
+            }
+            logger.fine( String.format( "Got %s owners for %s versions, describing them one at a time", lines.size(), chunk.size() ) );
+        } catch( Exception e ) {
+            logger.log( Level.FINE, "Unable to describe " + chunk.size() + " versions, describing them one at a time", e );
+        }
+
+        for( String name : chunk ) {
+            try {
+                owners.put( name, Cleartool.run( "describe -fmt %u \"" + name + "\"" ).stdoutBuffer.toString().trim() );
+            } catch( Exception e ) {
+                logger.warning( "Could not get the user of " + name );
+            }
         }
     }
 
     public static class ChangeSetGenerator {
-        private StringBuilder buffer = new StringBuilder(  );
-
-        public ChangeSetGenerator createHeader( String header ) {
-            buffer.append( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" );
-            buffer.append( "<changelog>" );
-            buffer.append( "<changeset>" );
-            buffer.append( "<entry>" );
-            buffer.append( "<blName>" + header + "</blName>" );
+        private final Writer out;
+        private final StringWriter buffer;
+        private Map<String, String> owners = new HashMap<>();
+
+        /**
+         * Generate the change log in memory, see {@link #get()}
+         */
+        public ChangeSetGenerator() {
+            this.buffer = new StringWriter();
+            this.out = buffer;
+        }
+
+        /**
+         * Write the change log to a {@link Writer} as it is generated
+         * @param out The {@link Writer}
+         */
+        public ChangeSetGenerator( Writer out ) {
+            this.buffer = null;
+            this.out = out;
+        }
+
+        /**
+         * @param owners The owners of the {@link Version}s, see {@link Util#blame(Collection)}. The owners of other {@link Version}s are looked up one by one.
+         */
+        public ChangeSetGenerator setOwners( Map<String, String> owners ) {
+            this.owners = owners;
             return this;
         }
 
-        public ChangeSetGenerator addAcitivity( String name, String header, String username, List<Version> versions ) {
+        public ChangeSetGenerator createHeader( String header ) throws IOException {
+            out.write( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" );
+            out.write( "<changelog>" );
+            out.write( "<changeset>" );
+            out.write( "<entry>" );
+            element( "blName", header );
+            return this;
+        }
+
+        public ChangeSetGenerator addAcitivity( String name, String header, String username, List<Version> versions ) throws IOException {
             if(versions.size() > 0) {
-                buffer.append( "<activity>" );
-                buffer.append("<actName>").append(name).append("</actName>");
-                buffer.append("<actHeadline>").append(header).append("</actHeadline>");
-                buffer.append("<author>").append(username).append("</author>");
-                String temp = null;
+                out.write( "<activity>" );
+                element( "actName", name );
+                element( "actHeadline", header );
+                element( "author", username );
                 for( Version v : versions ) {
-                    try {
-                        temp = "<file>" + v.getSFile() + " (" + v.getVersion() + ") user: " + v.blame() + "</file>";
-                    } catch( ClearCaseException e ) {
-                        logger.warning( "Could not generate log" );
+                    String user = owners.get( v.getFullyQualifiedName() );
+                    if( user == null ) {
+                        try {
+                            user = v.blame();
+                        } catch( ClearCaseException e ) {
+                            logger.warning( "Could not get the user of " + v.getSFile() );
+                        }
                     }
-                    buffer.append( temp );
+                    element( "file", v.getSFile() + " (" + v.getVersion() + ") user: " + user );
                 }
-                buffer.append( "</activity>" );
+                out.write( "</activity>" );
             }
             return this;
         }
 
-        public ChangeSetGenerator close() {
-            buffer.append( "</entry>" );
-            buffer.append( "</changeset>" );
-            buffer.append( "</changelog>" );
+        private void element( String name, String text ) throws IOException {
+            out.write( "<" + name + ">" );
+            out.write( StringEscapeUtils.escapeXml( text == null ? "" : text ) );
+            out.write( "</" + name + ">" );
+        }
+
+        public ChangeSetGenerator close() throws IOException {
+            out.write( "</entry>" );
+            out.write( "</changeset>" );
+            out.write( "</changelog>" );
+            out.flush();
 
             return this;
         }
 
+        /**
+         * @return The change log, null if it was written to a {@link Writer}
+         */
         public String get() {
-            return buffer.toString();
+            return buffer == null ? null : buffer.toString();
         }
     }
 
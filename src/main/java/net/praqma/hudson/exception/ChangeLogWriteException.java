@@ -0,0 +1,13 @@
+package net.praqma.hudson.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the change log file could not be written, as opposed to the change log not being generated
+ */
+public class ChangeLogWriteException extends IOException {
+
+	public ChangeLogWriteException( String msg, Throwable e ) {
+		super( msg, e );
+	}
+}
@@ -185,7 +185,9 @@ public class CCUCMNotifier extends Notifier {
 
 			try {
 				out.print( logShortPrefix + " " + ( treatSuccessful ? "Completing" : "Cancelling" ) + " the deliver. " );
+				long start = System.currentTimeMillis();
 				RemoteUtil.completeRemoteDeliver( build.getExecutor().getCurrentWorkspace(), listener, pstate.getBaseline(), pstate.getStream(), action.getViewTag(), action.getViewPath(), treatSuccessful );
+				pstate.time( "postBuild.deliverComplete", start );
 				out.println( "Success." );
 
 				/* If deliver was completed, create the baseline */
@@ -249,21 +251,29 @@ public class CCUCMNotifier extends Notifier {
         try {
             if( treatSuccessful && pstate.getPolling().isPollingRebase() ) {
                 out.println(String.format("%s The build was a succes, completing rebase", logShortPrefix));
+                long start = System.currentTimeMillis();
                 build.getWorkspace().act(new RebaseCompleteTask(pstate.getStream()));
+                pstate.time( "postBuild.rebaseComplete", start );
                 
                 if(pstate.doCreateBaseline()) {                   
                     out.println( String.format( "%s Creating baseline on Integration stream.", logShortPrefix ) );
                     out.println( String.format( "%s Absolute path of remoteWorkspace: %s", logShortPrefix, workspace ) );
                     pstate.setWorkspace( workspace );
+                    start = System.currentTimeMillis();
                     NameTemplate.validateTemplates( pstate, build.getWorkspace() );
                     String name = NameTemplate.parseTemplate( pstate.getNameTemplate(), pstate, build.getWorkspace() );
+                    pstate.time( "postBuild.nameTemplate", start );
+                    start = System.currentTimeMillis();
                     Baseline createdRebaseBaseline = RemoteUtil.createRemoteBaseline( currentWorkspace, name, pstate.getStream(), pstate.getComponent(), pstate.getViewPath() );
+                    pstate.time( "postBuild.createBaseline", start );
                     action.setCreatedBaseline( createdRebaseBaseline );                
                 }
                 
             } else if ( !treatSuccessful && pstate.getPolling().isPollingRebase()) {
                 out.println(String.format( "%s The build failed, cancelling rebase", logShortPrefix));
+                long start = System.currentTimeMillis();
                 build.getWorkspace().act(new RebaseCancelTask(pstate.getStream()));
+                pstate.time( "postBuild.rebaseCancel", start );
             }
         } catch (TemplateException templex) {
             out.println( String.format("%s %s", logShortPrefix, templex.getMessage() ) );
@@ -284,7 +294,10 @@ public class CCUCMNotifier extends Notifier {
             logger.fine( String.format( "Remote post build step" ) );
             out.println( String.format( "%s Performing common post build steps",logShortPrefix ) );
             
+            long start = System.currentTimeMillis();
             status = currentWorkspace.act(pstate.getMode().postBuildFinalizer(build, listener, status));
+            pstate.time( "postBuild.finalize", start );
+            pstate.addTimings( status.getTimings() );
 			//status = currentWorkspace.act( new RemotePostBuild( buildResult, status, listener, pstate.doMakeTag(), pstate.doRecommend(), pstate.getUnstable(), skipPromote, sourcebaseline, targetbaseline, sourcestream, targetstream, build.getParent().getDisplayName(), Integer.toString( build.getNumber() ), pstate.getRebaseTargets() ) );
 		} catch( Exception e ) {
 			status.setStable( false );
@@ -314,9 +327,13 @@ public class CCUCMNotifier extends Notifier {
         out.println( String.format( "%s Creating baseline on Integration stream.", logShortPrefix ) );
         out.println( String.format( "%s Absolute path of remoteWorkspace: %s", logShortPrefix, workspace ) );
         pstate.setWorkspace( workspace );
+        long start = System.currentTimeMillis();
         NameTemplate.validateTemplates( pstate, build.getWorkspace() );
         String name = NameTemplate.parseTemplate( pstate.getNameTemplate(), pstate, build.getWorkspace() );
+        pstate.time( "postBuild.nameTemplate", start );
+        start = System.currentTimeMillis();
         targetbaseline = RemoteUtil.createRemoteBaseline( currentWorkspace, name, component, pstate.getViewPath() );
+        pstate.time( "postBuild.createBaseline", start );
         return targetbaseline;
     }
     
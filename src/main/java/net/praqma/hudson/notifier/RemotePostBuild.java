@@ -21,6 +21,7 @@ import net.praqma.clearcase.ucm.entities.Stream;
 import net.praqma.clearcase.ucm.entities.Tag;
 import net.praqma.clearcase.util.ExceptionUtils;
 import net.praqma.hudson.Config;
+import net.praqma.hudson.PhaseTimings;
 import net.praqma.hudson.scm.Unstable;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.remoting.RoleChecker;
@@ -88,6 +89,8 @@ public class RemotePostBuild implements FileCallable<Status> {
 
 		/* Create the Tag object */
 		Tag tag = null;
+		PhaseTimings timings = status.getTimings();
+		long start = System.currentTimeMillis();
 		if( makeTag ) {
             logger.fine( "Trying to get/make tag" );
 			try {
@@ -97,6 +100,7 @@ public class RemotePostBuild implements FileCallable<Status> {
 			} catch( Exception e ) {
 				hudsonOut.println( "Unable to get tag for " + sourcebaseline.getNormalizedName() );
 			}
+			timings.record( "postBuild.tag", start );
 		}
 
 		/* The build was a success and the deliver did not fail */
@@ -115,6 +119,7 @@ public class RemotePostBuild implements FileCallable<Status> {
 
 			try {
                 /* Promote baseline, not any */
+                start = System.currentTimeMillis();
                 if( !skipPromote ) {
                     if( hasRemoteMastership() ) {
                         logger.fine( "Source/Target masterships differ, hasRemoteMastership = true" );
@@ -141,9 +146,11 @@ public class RemotePostBuild implements FileCallable<Status> {
                 } else {
                     status.setPromotedLevel( sourcebaseline.getPromotionLevel() );
                 }
+                timings.record( "postBuild.promote", start );
 
 				/* Recommend the Baseline */
 				if( recommend ) {
+					start = System.currentTimeMillis();
 					try {
                         
 						targetstream.recommendBaseline( targetbaseline );
@@ -154,6 +161,7 @@ public class RemotePostBuild implements FileCallable<Status> {
 						hudsonOut.println( CCUCMNotifier.logShortPrefix +" Could not recommend Baseline " + targetbaseline.getShortname() + ": " + e.getMessage() );
 						logger.warning( "Could not recommend baseline: " + e.getMessage() );
 					}
+					timings.record( "postBuild.recommend", start );
 				}
 			} catch( Exception e ) {
 				status.setStable( false );
@@ -187,6 +195,7 @@ public class RemotePostBuild implements FileCallable<Status> {
 
             /* Reject baseline, not any */
             if( !skipPromote ) {
+                start = System.currentTimeMillis();
                 try {
                     if( hasRemoteMastership() ) {
                         printPostedOutput( sourcebaseline );
@@ -202,6 +211,7 @@ public class RemotePostBuild implements FileCallable<Status> {
                     hudsonOut.println( CCUCMNotifier.logShortPrefix +" Could not reject baseline " + sourcebaseline.getShortname() );
                     logger.log( Level.WARNING, "Could not reject baseline", e );
                 }
+                timings.record( "postBuild.reject", start );
             } else {
                 status.setPromotedLevel( sourcebaseline.getPromotionLevel() );
             }
@@ -213,6 +223,7 @@ public class RemotePostBuild implements FileCallable<Status> {
 		/* Persist the Tag */
 		if( makeTag ) {
 			if( tag != null ) {
+				start = System.currentTimeMillis();
 				try {
 					if( hasRemoteMastership() ) {
 						hudsonOut.println( CCUCMNotifier.logShortPrefix + " Baseline not marked with tag as it has different mastership" );
@@ -231,6 +242,7 @@ public class RemotePostBuild implements FileCallable<Status> {
 						ExceptionUtils.log( e, true );
 					}
 				}
+				timings.record( "postBuild.tag", start );
 			} else {
 				logger.warning( "Tag object was null" );
 				hudsonOut.println( CCUCMNotifier.logShortPrefix + " Tag object was null, tag not set." );
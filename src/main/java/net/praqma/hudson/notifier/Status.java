@@ -3,6 +3,7 @@ package net.praqma.hudson.notifier;
 import hudson.model.Result;
 import java.io.Serializable;
 import net.praqma.clearcase.ucm.entities.Project;
+import net.praqma.hudson.PhaseTimings;
 
 public class Status implements Serializable {
 	private static final long serialVersionUID = 1113020858633109523L;
@@ -17,6 +18,8 @@ public class Status implements Serializable {
 
 	private boolean stable = true;
 
+	private PhaseTimings timings;
+
 	public Status() {
 
 	}
@@ -85,4 +88,14 @@ public class Status implements Serializable {
 		this.errorMessage = errorMessage;
 	}
 
+	/**
+	 * @return The time spent in each phase of the post build, on the slave
+	 */
+	public PhaseTimings getTimings() {
+		if( timings == null ) {
+			timings = new PhaseTimings();
+		}
+		return timings;
+	}
+
 }
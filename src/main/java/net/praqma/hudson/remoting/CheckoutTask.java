@@ -2,17 +2,33 @@ package net.praqma.hudson.remoting;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import edu.umd.cs.findbugs.annotations.*;
 import net.praqma.clearcase.exceptions.ClearCaseException;
 import net.praqma.clearcase.exceptions.RebaseException;
 import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Component;
 import net.praqma.clearcase.PVob;
 import net.praqma.clearcase.Rebase;
+import net.praqma.clearcase.cleartool.Cleartool;
 import net.praqma.clearcase.ucm.entities.Activity;
 import net.praqma.clearcase.ucm.entities.Stream;
 import net.praqma.clearcase.ucm.entities.Version;
@@ -30,6 +46,7 @@ import hudson.model.BuildListener;
 import hudson.remoting.VirtualChannel;
 import net.praqma.clearcase.ucm.view.SnapshotView.LoadRules2;
 import net.praqma.clearcase.ucm.view.UpdateView;
+import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.remoting.RoleChecker;
 
 @SuppressFBWarnings("")
@@ -51,6 +68,27 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
      */
     private boolean swipe = true;
     private boolean any = false;
+    /**
+     * Written next to the view when an update completes, holding the load modules
+     */
+    static final String UPDATED_FILE = "view.updated";
+    /**
+     * The {@link ViewPool} directory of the agent, null if views are not pooled
+     */
+    private String viewPool;
+    /**
+     * Only rebase and update the view, for a build that is still in the queue
+     */
+    private boolean prepareOnly = false;
+    /**
+     * True if the view was prepared for this {@link Baseline} while the build waited
+     */
+    private transient boolean prepared = false;
+    private transient Callable<List<Activity>> diffTask;
+    private transient FutureTask<List<Activity>> diffFuture;
+    private transient boolean diffStarted = false;
+    /* View tag -> the lock of the view, so a build and the preparation of its view do not use it at the same time */
+    private static final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
     private static final Logger logger = Logger.getLogger(CheckoutTask.class.getName());
 
     public CheckoutTask(BuildListener listener, String jobname, Stream targetStream, String loadModule, Baseline baseline, String buildProject, boolean any, boolean swipe) {
@@ -69,12 +107,47 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
 
         hudsonOut = listener.getLogger();
 
+        String viewtag = Util.createAndSanitizeCCUCMViewTag(jobname);
+
+        ReentrantLock lock = new ReentrantLock();
+        ReentrantLock existing = locks.putIfAbsent(viewtag, lock);
+        if (existing != null) {
+            lock = existing;
+        }
+
+        if (prepareOnly) {
+            /* The build has started, it makes the view itself */
+            if (!lock.tryLock()) {
+                hudsonOut.println("[" + Config.nameShort + "] The view " + viewtag + " is in use, not preparing it");
+                return null;
+            }
+        } else {
+            if (lock.isLocked()) {
+                hudsonOut.println("[" + Config.nameShort + "] Waiting for the view " + viewtag + " to be prepared");
+            }
+            try {
+                lock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Interrupted while waiting for the view " + viewtag);
+            }
+        }
+
+        try {
+            return establish(workspace, viewtag);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private EstablishResult establish(File workspace, String viewtag) throws IOException {
+
         logger.fine("Starting CheckoutTask");
 
         String diff = "";
-        String viewtag = Util.createAndSanitizeCCUCMViewTag(jobname);
 
         EstablishResult er = new EstablishResult();
+        PhaseTimings timings = er.getTimings();
+        long start = System.currentTimeMillis();
         /* We need to load target stream */
         try {
             targetStream.load();
@@ -86,46 +159,80 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
         }
 
         try {
+            /* The first build on an agent adopts a pooled view and its stream */
+            if (viewPool != null && !new File(workspace, "view").exists() && !Stream.streamExists("stream:" + viewtag + "@" + targetStream.getPVob())) {
+                start = System.currentTimeMillis();
+                String key = ViewPool.key(ViewPool.CHECKOUT, targetStream.getFullyQualifiedName(), loadModule, buildProject);
+                if (ViewPool.adopt(viewPool, key, workspace, viewtag, hudsonOut)) {
+                    timings.record("checkout.viewLease", start);
+                }
+            }
+
             logger.fine("Getting dev stream");
             Stream devstream = getDeveloperStream("stream:" + viewtag, targetStream.getPVob());
             devstream.load();
 
             logger.fine("Getting foundation baseline");
             Baseline foundation = devstream.getFoundationBaseline();
+
+            /* A prepared view is already rebased, the changes are from the foundation it had before it was first prepared */
+            PreparedView marker = PreparedView.read(workspace);
+            if (marker != null) {
+                prepared = !prepareOnly && marker.isFor(bl.getFullyQualifiedName());
+                foundation = Baseline.get(marker.getFoundation());
+            }
             foundation.load();
+            timings.record("checkout.entityLoad", start);
 
             if (!foundation.getStream().equals(targetStream)) {
                 hudsonOut.println("[" + Config.nameShort + "] The foundation baseline " + foundation.getShortname() + " does not match the stream " + targetStream.getShortname() + ". Changelog will probably be bogus.");
             }
 
+            /* The diff only needs the baselines, so it runs while the view is updated */
+            if (!prepareOnly) {
+                final Stream stream = devstream;
+                final Baseline from = foundation;
+                final PhaseTimings t = timings;
+                diffTask = new Callable<List<Activity>>() {
+                    @Override
+                    public List<Activity> call() throws Exception {
+                        long start = System.currentTimeMillis();
+                        List<Activity> activities = getBaselineDiff(stream, from);
+                        t.record("checkout.baselineDiff", start);
+                        return activities;
+                    }
+                };
+                diffFuture = new FutureTask<>(diffTask);
+            }
+
+            /* Marked before the rebase, so a build never takes a foundation the preparation rebased to */
+            if (prepareOnly) {
+                PreparedView.prepare(workspace, bl.getFullyQualifiedName(), foundation.getFullyQualifiedName());
+            }
+
             logger.fine("Making workspace");
 
-            makeWorkspace(workspace, viewtag);
-            List<Activity> bldiff = null;
-            if (any) {
-                if (devstream.isCreated()) {
-                    logger.fine("Diffing newly created stream");
-                    bldiff = Version.getBaselineDiff(targetStream.getFoundationBaseline(), bl, true, sv.getViewRoot());
-                } else {
-                    logger.fine("Diffing OOOOld stream");
-                    bldiff = Version.getBaselineDiff(foundation, bl, true, sv.getViewRoot());
-                }
-            } else {
-                /* Find the previous Baseline on the same Stream.
-                 * Currently, the Baseline is found regardless of promotion level. */
-                BaselineList previous = new BaselineList(targetStream, bl.getComponent(), null).addFilter(new BeforeBaseline(bl)).setLimit(1).apply();
-                if (previous.size() > 0) {
-                    hudsonOut.println("[" + Config.nameShort + "] Comparing " + bl.getNormalizedName() + " and " + previous.get(0).getNormalizedName());
-                    bldiff = Version.getBaselineDiff(bl, previous.get(0), true, sv.getViewRoot());
-                } else {
-                    bldiff = Collections.emptyList();
-                }
+            makeWorkspace(workspace, viewtag, devstream, timings);
+
+            if (prepareOnly) {
+                hudsonOut.println("[" + Config.nameShort + "] Prepared the view for " + bl.getNormalizedName());
+                er.setView(sv);
+                er.setViewtag(viewtag);
+                return er;
             }
+
+            List<Activity> bldiff = joinBaselineDiff(timings);
             er.setActivities(bldiff);
+            PreparedView.clear(workspace);
             logger.info("CheckoutTask finished normally");
 
         } catch (Exception e) {
             throw new IOException("", new UnableToInitializeWorkspaceException("Unable to initialize workspace", e));
+        } finally {
+            /* Do not leave the diff running if the view could not be made */
+            if (diffFuture != null) {
+                diffFuture.cancel(true);
+            }
         }
         
         er.setView(sv);
@@ -135,7 +242,65 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
         return er;
     }
 
-    private void makeWorkspace(File workspace, String viewtag) throws ScmException, ClearCaseException {
+    private List<Activity> getBaselineDiff(Stream devstream, Baseline foundation) throws Exception {
+        List<Activity> bldiff;
+        if (any) {
+            if (devstream.isCreated()) {
+                logger.fine("Diffing newly created stream");
+                bldiff = Version.getBaselineDiff(targetStream.getFoundationBaseline(), bl, true, sv.getViewRoot());
+            } else {
+                logger.fine("Diffing OOOOld stream");
+                bldiff = Version.getBaselineDiff(foundation, bl, true, sv.getViewRoot());
+            }
+        } else {
+            /* Find the previous Baseline on the same Stream.
+             * Currently, the Baseline is found regardless of promotion level. */
+            BaselineList previous = new BaselineList(targetStream, bl.getComponent(), null).addFilter(new BeforeBaseline(bl)).setLimit(1).apply();
+            if (previous.size() > 0) {
+                hudsonOut.println("[" + Config.nameShort + "] Comparing " + bl.getNormalizedName() + " and " + previous.get(0).getNormalizedName());
+                bldiff = Version.getBaselineDiff(bl, previous.get(0), true, sv.getViewRoot());
+            } else {
+                bldiff = Collections.emptyList();
+            }
+        }
+        return bldiff;
+    }
+
+    /**
+     * Start the baseline diff on a thread of its own, once the view root is there
+     */
+    private void startBaselineDiff() {
+        if (diffFuture == null || diffStarted) {
+            return;
+        }
+
+        diffStarted = true;
+        Thread thread = new Thread(diffFuture, "CCUCM baseline diff for " + jobname);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Wait for the baseline diff, or run it now if the view was not updated. If it failed while the view was updated, it is
+     * run again now.
+     */
+    private List<Activity> joinBaselineDiff(PhaseTimings timings) throws Exception {
+        if (!diffStarted) {
+            diffFuture.run();
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            return diffFuture.get();
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "The baseline diff failed while the view was updated, trying again", e.getCause());
+            return diffTask.call();
+        } finally {
+            timings.record("checkout.baselineDiffWait", start);
+        }
+    }
+
+    private void makeWorkspace(File workspace, String viewtag, Stream devstream, PhaseTimings timings) throws ScmException, ClearCaseException {
         // We know we have a stream (st), because it is set in
         // baselinesToBuild()
         if (workspace != null) {
@@ -146,16 +311,39 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
 
         File viewroot = new File(workspace, "view");
 
-        logger.fine("Creating dev strem");
-        Stream devstream = getDeveloperStream("stream:" + viewtag, targetStream.getPVob());
+        /* A rebuild, or a new build of the same baseline, finds the view already there and the stream already on the baseline */
+        boolean reused = viewroot.exists() && !devstream.isCreated();
 
         logger.fine("Making view");
+        long start = System.currentTimeMillis();
         sv = Util.makeView(devstream, workspace, listener, loadModule, viewroot, viewtag, false);
+        timings.record("checkout.makeView", start);
+
+        if (reused && isFoundation(devstream) && !Rebase.isInProgress(devstream)) {
+            hudsonOut.println("[" + Config.nameShort + "] The development stream (" + devstream.getShortname() + ") is already rebased to " + bl.getShortname() + ", not rebasing");
+            if (prepared && isUpdated(workspace)) {
+                hudsonOut.println("[" + Config.nameShort + "] The view was prepared while the build waited, not updating");
+                return;
+            }
+            /* The view private files of the previous build must still be removed */
+            if (swipe || !isUpdated(workspace)) {
+                updateView(workspace, timings, null);
+            } else {
+                hudsonOut.println("[" + Config.nameShort + "] The view is already up to date, not updating");
+            }
+            return;
+        }
 
+        /* The components of the old foundation, to only update the ones the rebase changes */
+        Map<String, String> before = null;
+        if (reused && !swipe && isUpdated(workspace)) {
+            before = getComposition(devstream);
+        }
 
         // Now we have to rebase - if a rebase is in progress, the
         // old one must be stopped and the new started instead
         logger.fine("Checking rebasing");
+        start = System.currentTimeMillis();
         if (Rebase.isInProgress(devstream)) {
             hudsonOut.print("[" + Config.nameShort + "] Cancelling previous rebase.");
             Rebase.cancelRebase(devstream);
@@ -177,6 +365,150 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
         }
 
         hudsonOut.println(" Done");
+        timings.record("checkout.rebase", start);
+
+        Set<String> changed = null;
+        if (before != null) {
+            changed = getChangedComponents(before, devstream);
+        }
+        updateView(workspace, timings, changed);
+    }
+
+    /**
+     * @return The fully qualified names of the foundation {@link Baseline}s of the {@link Stream}, keyed by their {@link Component}
+     */
+    private Map<String, String> getComposition(Stream stream) {
+        Map<String, String> composition = new HashMap<>();
+        for (Baseline foundation : stream.getFoundationBaselines()) {
+            composition.put(foundation.getComponent().getFullyQualifiedName(), foundation.getFullyQualifiedName());
+        }
+        return composition;
+    }
+
+    /**
+     * @param before The foundation of the development {@link Stream} before the rebase
+     * @return The fully qualified names of the {@link Component}s whose {@link Baseline} changed, null if the whole view must be updated
+     */
+    private Set<String> getChangedComponents(Map<String, String> before, Stream devstream) {
+        Map<String, String> after;
+        try {
+            Stream rebased = Stream.get(devstream.getFullyQualifiedName());
+            rebased.load();
+            after = getComposition(rebased);
+        } catch (ClearCaseException e) {
+            logger.log(Level.WARNING, "Unable to load the foundation of " + devstream.getFullyQualifiedName() + " after rebasing", e);
+            return null;
+        }
+
+        /* Adding or removing a component changes the load rules */
+        if (!before.keySet().equals(after.keySet())) {
+            return null;
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Generate the config spec of the view from its {@link Stream} again, so it selects the foundation the {@link Stream} was
+     * rebased to, as a whole update of the view does
+     * @throws IOException Thrown when the config spec could not be set
+     */
+    private void regenerateConfigSpec() throws IOException {
+        try {
+            Cleartool.run("setcs -stream", sv.getViewRoot());
+        } catch (Exception e) {
+            throw new IOException("Unable to generate the config spec of the view", e);
+        }
+    }
+
+    /**
+     * Update only the root directories of the {@link Component}s, keeping the load rules of the view.
+     * @throws IOException Thrown when a {@link Component} has no root directory, like a composite {@link Component}, or the update fails
+     */
+    private void updateComponents(Set<String> components) throws IOException {
+        List<String> roots = new ArrayList<>();
+        for (String component : components) {
+            String root;
+            try {
+                root = Cleartool.run("describe -fmt %[root_dir]p " + component).stdoutBuffer.toString().trim();
+            } catch (Exception e) {
+                throw new IOException("Unable to get the root directory of " + component, e);
+            }
+            if (root.isEmpty()) {
+                throw new IOException(component + " has no root directory");
+            }
+            roots.add("\"" + new File(sv.getViewRoot(), root).getAbsolutePath() + "\"");
+        }
+
+        try {
+            Cleartool.run("update -force -overwrite " + StringUtils.join(roots, " "), sv.getViewRoot());
+        } catch (Exception e) {
+            throw new IOException("Unable to update " + components, e);
+        }
+    }
+
+    /**
+     * @return True if the last update of the view completed, with the same load rules
+     */
+    private boolean isUpdated(File workspace) {
+        File marker = new File(workspace, UPDATED_FILE);
+        try {
+            return marker.exists() && new String(Files.readAllBytes(marker.toPath()), "UTF-8").trim().equalsIgnoreCase(loadModule);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Unable to read " + marker, e);
+            return false;
+        }
+    }
+
+    /**
+     * @return True if the {@link Baseline} to build is a foundation {@link Baseline} of the development {@link Stream}
+     */
+    private boolean isFoundation(Stream devstream) {
+        for (Baseline foundation : devstream.getFoundationBaselines()) {
+            if (foundation.getFullyQualifiedName().equals(bl.getFullyQualifiedName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param changed The fully qualified names of the {@link Component}s to update, null to update the whole view
+     */
+    private void updateView(File workspace, PhaseTimings timings, Set<String> changed) throws ScmException {
+        startBaselineDiff();
+        long start = System.currentTimeMillis();
+
+        /* Until the update completes, the next build cannot trust the view */
+        File marker = new File(workspace, UPDATED_FILE);
+        if (marker.exists() && !marker.delete()) {
+            throw new ScmException("Could not delete " + marker, null);
+        }
+
+        /* Removing the view private files takes a whole update */
+        if (changed != null && !swipe) {
+            try {
+                regenerateConfigSpec();
+                if (changed.isEmpty()) {
+                    hudsonOut.println("[" + Config.nameShort + "] No components changed, not updating the view");
+                } else {
+                    hudsonOut.println("[" + Config.nameShort + "] Updating the view for the changed components " + changed);
+                    updateComponents(changed);
+                }
+                timings.record("checkout.viewUpdate", start);
+                markUpdated(marker);
+                return;
+            } catch (IOException e) {
+                hudsonOut.println("[" + Config.nameShort + "] " + e.getMessage() + ", updating the whole view");
+                logger.log(Level.WARNING, "Unable to update the changed components, updating the whole view", e);
+            }
+        }
 
         try {
             hudsonOut.println("[" + Config.nameShort + "] Updating view using " + loadModule.toLowerCase() + " modules");
@@ -191,6 +523,7 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
             upview.setLoadRules(new LoadRules2(Components.valueOf(loadModule.toUpperCase())));
             //sv.Update(swipe, true, true, false, new LoadRules2(sv, Components.valueOf(loadModule.toUpperCase())));
             upview.update();            
+            timings.record("checkout.viewUpdate", start);
             logger.fine("Updating done");
         } catch (ClearCaseException e) {
             e.print(hudsonOut);
@@ -198,6 +531,16 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
         } catch (IOException ioex) {
             throw new ScmException("Could not update snapshot view", ioex);
         } 
+        markUpdated(marker);
+    }
+
+    private void markUpdated(File marker) {
+        try {
+            Files.write(marker.toPath(), loadModule.getBytes("UTF-8"));
+        } catch (IOException e) {
+            /* The next build updates the whole view */
+            logger.log(Level.WARNING, "Unable to write " + marker, e);
+        }
     }
 
     private Stream getDeveloperStream(String streamname, PVob pvob) throws ScmException {
@@ -229,6 +572,14 @@ public class CheckoutTask implements FileCallable<EstablishResult> {
         return sv;
     }
 
+    public void setViewPool(String viewPool) {
+        this.viewPool = viewPool;
+    }
+
+    public void setPrepareOnly(boolean prepareOnly) {
+        this.prepareOnly = prepareOnly;
+    }
+
     @Override
     public void checkRoles(RoleChecker roleChecker) throws SecurityException {
 
@@ -0,0 +1,120 @@
+package net.praqma.hudson.remoting;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Remembers which agents ClearCase was found on by {@link RemoteClearCaseCheck}, so polls and checkouts do not launch
+ * cleartool on every run. A result is kept per channel for a time to live. It is forgotten when the agent goes on or off
+ * line, and when the check or a later ClearCase operation on the agent fails.
+ */
+public class ClearCaseCheckCache {
+
+    private static final Logger logger = Logger.getLogger(ClearCaseCheckCache.class.getName());
+
+    private static final ClearCaseCheckCache instance = new ClearCaseCheckCache();
+
+    /* Channel -> the time ClearCase was last found on it */
+    private final Map<VirtualChannel, Long> checked = new WeakHashMap<>();
+
+    public static ClearCaseCheckCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Check that ClearCase is available where the workspace is, unless it was found there within the time to live.
+     *
+     * @param workspace The workspace
+     * @param ttl The time to live in milliseconds. If less than 1, ClearCase is always checked.
+     * @throws IOException Thrown when the check cannot be run
+     * @throws InterruptedException Thrown when interrupted
+     */
+    public void check(FilePath workspace, long ttl) throws IOException, InterruptedException {
+        VirtualChannel channel = workspace.getChannel();
+        if (ttl > 0 && isFresh(channel, ttl)) {
+            return;
+        }
+
+        try {
+            workspace.act(new RemoteClearCaseCheck());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            invalidate(channel);
+            throw e;
+        }
+
+        if (ttl > 0) {
+            synchronized (checked) {
+                checked.put(channel, System.currentTimeMillis());
+            }
+        }
+    }
+
+    private boolean isFresh(VirtualChannel channel, long ttl) {
+        synchronized (checked) {
+            Long last = checked.get(channel);
+            return last != null && System.currentTimeMillis() - last <= ttl;
+        }
+    }
+
+    /**
+     * Forget that ClearCase was found on a channel, typically because a ClearCase operation failed there.
+     * @param channel The channel, may be null
+     */
+    public void invalidate(VirtualChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        synchronized (checked) {
+            if (checked.remove(channel) != null) {
+                logger.fine("Forgetting the ClearCase check of " + channel);
+            }
+        }
+    }
+
+    /**
+     * Forget the channels that are closed. The channel of a disconnected agent is not known anymore.
+     */
+    private void invalidateClosed() {
+        synchronized (checked) {
+            Iterator<VirtualChannel> it = checked.keySet().iterator();
+            while (it.hasNext()) {
+                VirtualChannel channel = it.next();
+                if (channel instanceof Channel && ((Channel) channel).isClosingOrClosed()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (checked) {
+            checked.clear();
+        }
+    }
+
+    @Extension
+    public static class Listener extends ComputerListener {
+
+        @Override
+        public void onOnline(Computer c, TaskListener listener) throws IOException, InterruptedException {
+            getInstance().invalidate(c.getChannel());
+        }
+
+        @Override
+        public void onOffline(Computer c, OfflineCause cause) {
+            getInstance().invalidateClosed();
+        }
+    }
+}
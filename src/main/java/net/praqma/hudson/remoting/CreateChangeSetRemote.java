@@ -8,10 +8,23 @@ package net.praqma.hudson.remoting;
 import edu.umd.cs.findbugs.annotations.*;
 import hudson.FilePath;
 import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import net.praqma.clearcase.Cool;
 import net.praqma.clearcase.ucm.entities.Activity;
@@ -37,6 +50,12 @@ public class CreateChangeSetRemote implements FilePath.FileCallable<String>{
     public final File viewRoot;
     public final List<String> readOnly;
     public final boolean ignoreReadOnly;
+
+    /* If set, the change log is written here as UTF-8 instead of returned */
+    private OutputStream output;
+
+    /* The number of activities whose versions are resolved at the same time in a non-trimmed change set */
+    private int threads = 1;
     
     public CreateChangeSetRemote(List<Activity> activities, Baseline bl, boolean trimmed, File viewRoot, List<String> readonly, boolean ignoreReadOnly) {
         this.activities = activities;
@@ -47,11 +66,37 @@ public class CreateChangeSetRemote implements FilePath.FileCallable<String>{
         this.ignoreReadOnly = ignoreReadOnly;
     }
 
+    /**
+     * Write the change log to a stream as it is generated, instead of returning it. Use a
+     * {@link hudson.remoting.RemoteOutputStream} when invoked on a slave.
+     * @param output The stream, closed when the change log is written
+     */
+    public void setOutput(OutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * @param threads The number of activities whose versions are resolved at the same time in a non-trimmed change set, 1 resolves them one by one
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     @Override
     public String invoke(File file, VirtualChannel vc) throws IOException, InterruptedException {
         logger.fine( String.format("Trim changeset: %s", trimmed));
-        Util.ChangeSetGenerator csg = new Util.ChangeSetGenerator().createHeader( bl.getShortname() );
+        Writer writer = output == null ? null : new BufferedWriter( new OutputStreamWriter( output, "UTF-8" ) );
+        try {
+            return generate( writer == null ? new Util.ChangeSetGenerator() : new Util.ChangeSetGenerator( writer ) );
+        } finally {
+            if( writer != null ) {
+                writer.close();
+            }
+        }
+    }
 
+    private String generate( Util.ChangeSetGenerator csg ) throws IOException, InterruptedException {
+        Map<Activity, List<Version>> acts;
         if( trimmed ) {
             logger.fine("Creating trimmed change set");
             VersionList vl = new VersionList().addActivities( activities ).setBranchName( "^.*" + Cool.qfs + bl.getStream().getShortname() + ".*$" );
@@ -60,25 +105,74 @@ public class CreateChangeSetRemote implements FilePath.FileCallable<String>{
                 vl = vl.addFilter(new ReadOnlyVersionFilter(viewRoot, readOnly)).apply();                
             }
                        
-            Map<Activity, List<Version>> acts = vl.getLatestForActivities();
- 
-            for( Activity activity : acts.keySet() ) {
-                csg.addAcitivity( activity.getShortname(), activity.getHeadline(), activity.getUser(), acts.get( activity ) );
-            }
+            acts = vl.getLatestForActivities();
         } else {
             logger.fine("Creating non-trimmed changeset");
-            for( Activity activity : activities ) {
-                VersionList versions = new VersionList( activity.changeset.versions, activities ).getLatest();
-                if(ignoreReadOnly) {
-                    versions = versions.addFilter(new ReadOnlyVersionFilter(viewRoot, readOnly)).apply();                
+            if( threads > 1 && activities.size() > 1 ) {
+                acts = getVersionsConcurrently();
+            } else {
+                acts = new LinkedHashMap<>();
+                for( Activity activity : activities ) {
+                    acts.put( activity, getVersions( activity ) );
                 }
-                csg.addAcitivity( activity.getShortname(), activity.getHeadline(), activity.getUser(), versions );
             }
         }
 
+        /* The owners of all the versions at once, instead of one describe per version */
+        List<Version> versions = new ArrayList<>();
+        for( List<Version> vs : acts.values() ) {
+            versions.addAll( vs );
+        }
+        csg.setOwners( Util.blame( versions ) );
+
+        csg.createHeader( bl.getShortname() );
+        for( Activity activity : acts.keySet() ) {
+            csg.addAcitivity( activity.getShortname(), activity.getHeadline(), activity.getUser(), acts.get( activity ) );
+        }
+
         return csg.close().get();
     }
 
+    private List<Version> getVersions( Activity activity ) {
+        VersionList versions = new VersionList( activity.changeset.versions, activities ).getLatest();
+        if(ignoreReadOnly) {
+            versions = versions.addFilter(new ReadOnlyVersionFilter(viewRoot, readOnly)).apply();                
+        }
+        return versions;
+    }
+
+    /**
+     * Resolve the versions of the activities on a bounded pool, keeping the order of the activities
+     */
+    private Map<Activity, List<Version>> getVersionsConcurrently() throws IOException, InterruptedException {
+        int size = Math.min( threads, activities.size() );
+        logger.fine( String.format( "Resolving the versions of %s activities on %s threads", activities.size(), size ) );
+        ExecutorService executor = Executors.newFixedThreadPool( size, new NamingThreadFactory( new DaemonThreadFactory(), "CCUCM change set" ) );
+        try {
+            List<Future<List<Version>>> futures = new ArrayList<>();
+            for( final Activity activity : activities ) {
+                futures.add( executor.submit( new Callable<List<Version>>() {
+                    @Override
+                    public List<Version> call() throws Exception {
+                        return getVersions( activity );
+                    }
+                } ) );
+            }
+
+            Map<Activity, List<Version>> acts = new LinkedHashMap<>();
+            for( int i = 0; i < activities.size(); i++ ) {
+                try {
+                    acts.put( activities.get( i ), futures.get( i ).get() );
+                } catch( ExecutionException e ) {
+                    throw new IOException( "Unable to get the versions of " + activities.get( i ).getShortname(), e.getCause() );
+                }
+            }
+            return acts;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     public void checkRoles(RoleChecker roleChecker) throws SecurityException {
 
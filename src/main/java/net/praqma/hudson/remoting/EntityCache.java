@@ -0,0 +1,150 @@
+package net.praqma.hudson.remoting;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.clearcase.ucm.entities.UCMEntity;
+
+/**
+ * Remembers loaded {@link UCMEntity}s in the JVM that loads them, the agent or the master, so the same entity is not
+ * described by cleartool over and over. The least recently used entities are evicted first.
+ * <p>
+ * {@link Baseline}s and {@link Stream}s have state that changes, like the promotion level or the foundation baselines, so
+ * they are kept for a shorter time than the other entities. Callers get a copy, so they cannot change the cached entity.
+ */
+public class EntityCache {
+
+    private static final Logger logger = Logger.getLogger(EntityCache.class.getName());
+
+    public static final int CAPACITY = 1000;
+
+    private static final EntityCache instance = new EntityCache();
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    private long hits;
+    private long misses;
+
+    public static EntityCache getInstance() {
+        return instance;
+    }
+
+    private static String key(UCMEntity entity) {
+        return entity.getClass().getSimpleName() + "|" + entity.getFullyQualifiedName();
+    }
+
+    /**
+     * @return True if the state of the entity changes while it exists
+     */
+    public static boolean isMutable(UCMEntity entity) {
+        return entity instanceof Baseline || entity instanceof Stream;
+    }
+
+    /**
+     * @param entity The entity, not necessarily loaded
+     * @param ttl The time to live of immutable entities in milliseconds
+     * @param mutableTtl The time to live of mutable entities in milliseconds
+     * @return A copy of the loaded entity, or null if it is not cached or has expired
+     */
+    public synchronized UCMEntity get(UCMEntity entity, long ttl, long mutableTtl) {
+        long maxAge = isMutable(entity) ? mutableTtl : ttl;
+        if (maxAge < 1) {
+            return null;
+        }
+
+        String key = key(entity);
+        Entry entry = entries.get(key);
+        if (entry == null || System.currentTimeMillis() - entry.loaded > maxAge) {
+            misses++;
+            return null;
+        }
+
+        try {
+            UCMEntity copy = copy(entry.entity);
+            hits++;
+            logger.finest("Using the cached " + key);
+            return copy;
+        } catch (IOException | ClassNotFoundException e) {
+            logger.log(Level.WARNING, "Unable to copy the cached " + key, e);
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+    }
+
+    /**
+     * @param entity The loaded entity. A copy is cached.
+     */
+    public synchronized void put(UCMEntity entity) {
+        try {
+            entries.put(key(entity), new Entry(copy(entity)));
+        } catch (IOException | ClassNotFoundException e) {
+            logger.log(Level.WARNING, "Unable to cache " + key(entity), e);
+        }
+    }
+
+    /**
+     * Copy an entity by serializing it. The classes are resolved by the class loader of the plugin, the class loader of
+     * the serialization libraries cannot see the entity classes.
+     */
+    static UCMEntity copy(UCMEntity entity) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(entity);
+        }
+
+        try (ObjectInputStream in = new PluginObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (UCMEntity) in.readObject();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s entities, %s hits, %s misses", entries.size(), hits, misses);
+    }
+
+    private static class PluginObjectInputStream extends ObjectInputStream {
+
+        PluginObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, EntityCache.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final UCMEntity entity;
+        private final long loaded = System.currentTimeMillis();
+
+        Entry(UCMEntity entity) {
+            this.entity = entity;
+        }
+    }
+}
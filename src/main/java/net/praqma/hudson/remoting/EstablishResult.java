@@ -6,6 +6,7 @@ import java.util.List;
 
 import net.praqma.clearcase.ucm.entities.Activity;
 import net.praqma.clearcase.ucm.view.SnapshotView;
+import net.praqma.hudson.PhaseTimings;
 
 public class EstablishResult implements Serializable {
 	
@@ -14,6 +15,7 @@ public class EstablishResult implements Serializable {
 	private List<Activity> activities = new ArrayList<Activity>();
 	private SnapshotView view;
 	private String message;
+	private PhaseTimings timings = new PhaseTimings();
 	
 	public EstablishResult() { }
 	
@@ -60,6 +62,10 @@ public class EstablishResult implements Serializable {
 	public void setView( SnapshotView view ) {
 		this.view = view;
 	}
+
+	public PhaseTimings getTimings() {
+		return timings;
+	}
 	
 
 }
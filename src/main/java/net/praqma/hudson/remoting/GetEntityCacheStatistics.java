@@ -0,0 +1,22 @@
+package net.praqma.hudson.remoting;
+
+import hudson.remoting.Callable;
+import org.jenkinsci.remoting.RoleChecker;
+
+/**
+ * Gets the statistics of the {@link EntityCache} of an agent
+ */
+public class GetEntityCacheStatistics implements Callable<String, RuntimeException> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String call() {
+        return EntityCache.getInstance().toString();
+    }
+
+    @Override
+    public void checkRoles(RoleChecker roleChecker) throws SecurityException {
+
+    }
+}
@@ -0,0 +1,122 @@
+package net.praqma.hudson.remoting;
+
+import hudson.FilePath.FileCallable;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import edu.umd.cs.findbugs.annotations.*;
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Component;
+import net.praqma.clearcase.ucm.entities.Project;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.hudson.scm.Polling;
+import net.praqma.hudson.scm.SCMRevisionStateImpl;
+import net.praqma.hudson.scm.StreamScanResult;
+import net.praqma.hudson.scm.StreamScanner;
+import org.jenkinsci.remoting.RoleChecker;
+
+/**
+ * Resolves the related {@link Stream}s of a {@link Stream} and lists the valid {@link Baseline}s of each of them,
+ * all in a single invocation. This saves a remoting round trip per related {@link Stream} when polling on slaves.
+ */
+@SuppressFBWarnings("")
+public class GetRelatedStreamsBaselines implements FileCallable<LinkedHashMap<String, StreamScanResult>> {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = Logger.getLogger(GetRelatedStreamsBaselines.class.getName());
+
+    private final TaskListener listener;
+    private final Stream stream;
+    private final Polling polling;
+    private final Component component;
+    private final Project.PromotionLevel plevel;
+    private final boolean multisitePolling;
+    private final String hyperLinkName;
+    private final List<Stream> related;
+    private final Date date;
+    private final Map<String, Date> since;
+    private final boolean probe;
+    private final Set<String> skip;
+    private final int concurrency;
+    private final long timeout;
+
+    public GetRelatedStreamsBaselines(TaskListener listener, Stream stream, Polling polling, Component component, Project.PromotionLevel plevel, boolean multisitePolling, String hyperLinkName, List<Stream> related, Date date, Map<String, Date> since, boolean probe, Set<String> skip, int concurrency, long timeout) {
+        this.listener = listener;
+        this.stream = stream;
+        this.polling = polling;
+        this.component = component;
+        this.plevel = plevel;
+        this.multisitePolling = multisitePolling;
+        this.hyperLinkName = hyperLinkName;
+        this.related = related;
+        this.date = date;
+        this.since = since;
+        this.probe = probe;
+        this.skip = skip;
+        this.concurrency = concurrency;
+        this.timeout = timeout;
+    }
+
+    /**
+     * The {@link Baseline}s of a related {@link Stream} are only listed from the later of the given date and the date in
+     * {@code since} for that {@link Stream}, if any. If the related {@link Stream}s are already known, they are not resolved
+     * again. When probing, at most the newest {@link Baseline} of each {@link Stream} is listed. The {@link Stream}s in
+     * {@code skip} are not scanned. A {@link Stream} taking longer than the timeout is reported as failed.
+     *
+     * @return The scan result of each related {@link Stream}, keyed by the fully qualified name of the {@link Stream}, in
+     * the order the related streams were found
+     * @throws IOException Thrown when the related streams cannot be found
+     * @throws InterruptedException Thrown when interrupted
+     */
+    @Override
+    public LinkedHashMap<String, StreamScanResult> invoke(final File f, final VirtualChannel channel) throws IOException, InterruptedException {
+        List<Stream> streams = related;
+        if (streams == null) {
+            streams = new GetRelatedStreams(listener, stream, polling, multisitePolling, hyperLinkName).invoke(f, channel);
+            logger.fine(String.format("Found %s streams related to %s", streams.size(), stream.getShortname()));
+        }
+
+        /* Skipped streams are reported, but not scanned */
+        List<Stream> scanned = new ArrayList<>();
+        for (Stream s : streams) {
+            if (skip == null || !skip.contains(s.getFullyQualifiedName())) {
+                scanned.add(s);
+            }
+        }
+
+        Iterator<StreamScanResult> it = new StreamScanner(concurrency, timeout).scan(scanned, new StreamScanner.BaselineLister() {
+            @Override
+            public List<Baseline> list(Stream s) throws IOException, InterruptedException {
+                Date after = date;
+                if (since != null && since.containsKey(s.getFullyQualifiedName())) {
+                    after = SCMRevisionStateImpl.latest(date, since.get(s.getFullyQualifiedName()));
+                }
+                return new GetRemoteBaselineFromStream(component, s, plevel, multisitePolling, after, probe).invoke(f, channel);
+            }
+        }).iterator();
+
+        LinkedHashMap<String, StreamScanResult> map = new LinkedHashMap<>();
+        for (Stream s : streams) {
+            StreamScanResult result = scanned.contains(s) ? it.next() : StreamScanResult.skipped(s);
+            map.put(s.getFullyQualifiedName(), result);
+        }
+
+        return map;
+    }
+
+    @Override
+    public void checkRoles(RoleChecker roleChecker) throws SecurityException {
+
+    }
+}
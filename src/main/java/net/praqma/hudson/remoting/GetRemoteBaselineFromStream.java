@@ -27,13 +27,22 @@ public class GetRemoteBaselineFromStream implements FileCallable<BaselineList> {
 	private final Project.PromotionLevel plevel;
 	private final boolean multisitePolling;
     private final Date date;
+    private final boolean probe;
 
 	public GetRemoteBaselineFromStream( Component component, Stream stream, Project.PromotionLevel plevel, boolean multisitePolling, Date date ) {
+		this( component, stream, plevel, multisitePolling, date, false );
+	}
+
+    /**
+     * @param probe If true, only the newest valid {@link net.praqma.clearcase.ucm.entities.Baseline} is returned. This is enough to tell whether there are any.
+     */
+	public GetRemoteBaselineFromStream( Component component, Stream stream, Project.PromotionLevel plevel, boolean multisitePolling, Date date, boolean probe ) {
 		this.component = component;
 		this.stream = stream;
 		this.plevel = plevel;
 		this.multisitePolling = multisitePolling;
         this.date = date;
+        this.probe = probe;
 	}
     
     @Override
@@ -45,9 +54,14 @@ public class GetRemoteBaselineFromStream implements FileCallable<BaselineList> {
         BaselineList baselines = null;
 
         baselines = new BaselineList( stream, component, plevel, multisitePolling ).
-                setSorting( new BaselineList.AscendingDateSort() ).
                 addFilter( new NoLabels()).
                 addFilter( new NoDeliver() );
+
+        if( probe ) {
+            baselines.setSorting( new BaselineList.DescendingDateSort() ).setLimit( 1 );
+        } else {
+            baselines.setSorting( new BaselineList.AscendingDateSort() );
+        }
         
         /* Only filter by date, if it is valid */
         if( date != null ) {
@@ -15,19 +15,41 @@ public class LoadEntity implements FileCallable<UCMEntity> {
 
 	private final UCMEntity entity;
 
+	/**
+	 * The times to live in the {@link EntityCache}, in milliseconds. If less than 1, the cache is not used.
+	 */
+	private final long ttl;
+	private final long mutableTtl;
+
 	public LoadEntity( UCMEntity entity ) {
+		this( entity, 0, 0 );
+	}
+
+	public LoadEntity( UCMEntity entity, long ttl, long mutableTtl ) {
 		this.entity = entity;
+		this.ttl = ttl;
+		this.mutableTtl = mutableTtl;
 	}
 
 	@Override
 	public UCMEntity invoke( File f, VirtualChannel channel ) throws IOException, InterruptedException {
 
+		EntityCache cache = EntityCache.getInstance();
+		UCMEntity cached = cache.get( entity, ttl, mutableTtl );
+		if( cached != null ) {
+			return cached;
+		}
+
 		try {
 			entity.load();
 		} catch( Exception e ) {
 			throw new IOException( "Unable to load " + entity.getShortname(), e );
 		}
 
+		if( ( EntityCache.isMutable( entity ) ? mutableTtl : ttl ) > 0 ) {
+			cache.put( entity );
+		}
+
 		return entity;
 	}
 
@@ -0,0 +1,102 @@
+package net.praqma.hudson.remoting;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Stream;
+
+/**
+ * The marker of a view prepared while its build waited, see {@link CheckoutTask}. It is written next to the view before the
+ * development {@link Stream} is rebased, and holds the {@link Baseline} the view was prepared for and the foundation the
+ * {@link Stream} had before it was first prepared. The next build diffs from that foundation, whichever {@link Baseline} it
+ * builds, and removes the marker once it has its changes.
+ */
+public class PreparedView {
+
+    private static final Logger logger = Logger.getLogger(PreparedView.class.getName());
+
+    static final String FILE = "view.prepared";
+
+    private final String baseline;
+    private final String foundation;
+
+    private PreparedView(String baseline, String foundation) {
+        this.baseline = baseline;
+        this.foundation = foundation;
+    }
+
+    /**
+     * @param workspace The workspace
+     * @return The marker of the view in the workspace, null if the view was not prepared or the marker cannot be read
+     */
+    public static PreparedView read(File workspace) {
+        File marker = new File(workspace, FILE);
+        if (!marker.exists()) {
+            return null;
+        }
+
+        try {
+            String[] lines = new String(Files.readAllBytes(marker.toPath()), "UTF-8").split("\n");
+            if (lines.length == 2) {
+                return new PreparedView(lines[0].trim(), lines[1].trim());
+            }
+            logger.warning("Ignoring the malformed " + marker);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to read " + marker, e);
+        }
+        return null;
+    }
+
+    /**
+     * Mark the view as prepared for a {@link Baseline}. A view prepared again keeps the foundation it was first prepared from.
+     *
+     * @param workspace The workspace
+     * @param baseline The fully qualified name of the {@link Baseline} the view is prepared for
+     * @param foundation The fully qualified name of the foundation {@link Baseline} before the view is rebased
+     * @return The marker
+     * @throws IOException Thrown when the marker cannot be written. The view must then not be rebased.
+     */
+    public static PreparedView prepare(File workspace, String baseline, String foundation) throws IOException {
+        PreparedView existing = read(workspace);
+        PreparedView marker = new PreparedView(baseline, existing == null ? foundation : existing.getFoundation());
+        Files.write(new File(workspace, FILE).toPath(), (marker.baseline + "\n" + marker.foundation).getBytes("UTF-8"));
+        return marker;
+    }
+
+    /**
+     * Remove the marker, once a build has its changes from the foundation
+     * @param workspace The workspace
+     */
+    public static void clear(File workspace) {
+        File marker = new File(workspace, FILE);
+        if (marker.exists() && !marker.delete()) {
+            logger.warning("Unable to delete " + marker);
+        }
+    }
+
+    /**
+     * @return The fully qualified name of the {@link Baseline} the view was last prepared for
+     */
+    public String getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * @return The fully qualified name of the foundation {@link Baseline} before the view was first prepared
+     */
+    public String getFoundation() {
+        return foundation;
+    }
+
+    /**
+     * @param bl The fully qualified name of a {@link Baseline}
+     * @return True if the view was last prepared for the {@link Baseline}
+     */
+    public boolean isFor(String bl) {
+        return baseline.equals(bl);
+    }
+}
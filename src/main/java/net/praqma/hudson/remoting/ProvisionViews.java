@@ -0,0 +1,258 @@
+package net.praqma.hudson.remoting;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.FilePath.FileCallable;
+import hudson.model.BuildListener;
+import hudson.remoting.VirtualChannel;
+import net.praqma.clearcase.Rebase;
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.clearcase.ucm.utils.BaselineList;
+import net.praqma.clearcase.ucm.view.SnapshotView;
+import net.praqma.hudson.Config;
+import net.praqma.hudson.Util;
+import org.jenkinsci.remoting.RoleChecker;
+
+/**
+ * Fills up the {@link ViewPool} of a key on an agent, and removes the views that could not be adopted. When the last
+ * {@link Baseline} of the job, or the newest {@link Baseline} of a deliver {@link Stream}, changed, the ready views are
+ * rebased and updated. Views beyond the size of the pool are removed. Acts on the pool directory.
+ */
+public class ProvisionViews implements FileCallable<ViewPool.Occupancy> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = Logger.getLogger(ProvisionViews.class.getName());
+
+    private final BuildListener listener;
+    private final String kind;
+    private final String stream;
+    private final String baseline;
+    private final String loadModule;
+    private final String buildProject;
+    private final int size;
+
+    /**
+     * @param listener The listener
+     * @param kind {@link ViewPool#CHECKOUT} or {@link ViewPool#DELIVER}
+     * @param stream The fully qualified name of the {@link Stream} the job builds from
+     * @param baseline The fully qualified name of the {@link Baseline} a {@link ViewPool#CHECKOUT} development {@link Stream} starts from
+     * @param loadModule The load modules of the job
+     * @param buildProject The project of the development {@link Stream}s, may be empty
+     * @param size The number of views to keep ready
+     */
+    public ProvisionViews(BuildListener listener, String kind, String stream, String baseline, String loadModule, String buildProject, int size) {
+        this.listener = listener;
+        this.kind = kind;
+        this.stream = stream;
+        this.baseline = baseline;
+        this.loadModule = loadModule;
+        this.buildProject = buildProject;
+        this.size = size;
+    }
+
+    public String getKey() {
+        return ViewPool.key(kind, stream, loadModule, buildProject);
+    }
+
+    @Override
+    public ViewPool.Occupancy invoke(File pool, VirtualChannel channel) throws IOException, InterruptedException {
+        File dir = ViewPool.getDir(pool, getKey());
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create the view pool " + dir);
+        }
+
+        int removed = 0;
+        File[] entries = dir.listFiles();
+        if (entries != null) {
+            for (File entry : entries) {
+                if (ViewPool.isRemovable(entry)) {
+                    listener.getLogger().println("[" + Config.nameShort + "] Removing the pooled view " + entry.getName());
+                    ViewPool.remove(entry);
+                    removed++;
+                }
+            }
+        }
+
+        /* The pool shrinks when its size is lowered */
+        List<File> readyEntries = ViewPool.getReady(dir);
+        int ready = readyEntries.size();
+        for (File entry : readyEntries) {
+            if (ready <= size) {
+                break;
+            }
+            File leased = ViewPool.lease(entry);
+            if (leased != null) {
+                listener.getLogger().println("[" + Config.nameShort + "] Removing the surplus pooled view " + entry.getName());
+                ViewPool.remove(leased);
+                removed++;
+            }
+            ready--;
+        }
+
+        /* The baseline the views are refreshed to, null if it is not known */
+        String target = baseline;
+        if (ViewPool.DELIVER.equals(kind)) {
+            try {
+                target = getLatestBaseline();
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Unable to get the latest baseline of " + stream + ", not refreshing its pooled views", e);
+                target = null;
+            }
+        }
+
+        int refreshed = 0;
+        if (target != null) {
+            for (File entry : ViewPool.getReady(dir)) {
+                if (refresh(entry, target)) {
+                    refreshed++;
+                }
+            }
+        }
+
+        ready = ViewPool.getReady(dir).size();
+        int provisioned = 0;
+        while (ready < size) {
+            try {
+                provision(dir, target);
+            } catch (Exception e) {
+                /* Try again next round */
+                listener.getLogger().println("[" + Config.nameShort + "] Unable to make a pooled view for " + stream + ": " + e.getMessage());
+                logger.log(Level.WARNING, "Unable to make a pooled view for " + getKey(), e);
+                break;
+            }
+            ready++;
+            provisioned++;
+        }
+
+        return new ViewPool.Occupancy(ready, size, provisioned, refreshed, removed);
+    }
+
+    /**
+     * @return The fully qualified name of the newest {@link Baseline} of the {@link Stream}, empty if it has none
+     */
+    private String getLatestBaseline() throws Exception {
+        BaselineList latest = new BaselineList(Stream.get(stream), null, null).setSorting(new BaselineList.DescendingDateSort()).setLimit(1).apply();
+        return latest.isEmpty() ? "" : latest.get(0).getFullyQualifiedName();
+    }
+
+    /**
+     * Refresh a ready view, so the build adopting it has little left to do. Only a view made or refreshed before the
+     * {@link Baseline} changed is refreshed: a {@link ViewPool#CHECKOUT} view is rebased to the last {@link Baseline} of the
+     * job and updated, a {@link ViewPool#DELIVER} view is updated when its {@link Stream} has a new {@link Baseline}. The
+     * entry is leased meanwhile. A view that cannot be refreshed is marked as broken.
+     *
+     * @param target The fully qualified name of the {@link Baseline} to refresh the view to
+     * @return True if the view was refreshed
+     */
+    private boolean refresh(File ready, String target) {
+        File entry = ViewPool.lease(ready);
+        if (entry == null) {
+            /* Adopted meanwhile */
+            return false;
+        }
+
+        boolean refreshed = false;
+        try {
+            Properties properties = ViewPool.load(entry);
+            if (!target.equals(properties.getProperty("baseline"))) {
+                Stream viewStream = Stream.get(properties.getProperty("stream"));
+                File viewroot = new File(entry, "view");
+                String viewtag = properties.getProperty("viewtag");
+
+                if (ViewPool.CHECKOUT.equals(kind)) {
+                    listener.getLogger().println("[" + Config.nameShort + "] Rebasing the pooled view " + viewtag + " to " + target);
+                    Baseline bl = Baseline.get(target);
+                    bl.load();
+                    if (Rebase.isInProgress(viewStream)) {
+                        Rebase.cancelRebase(viewStream);
+                    }
+                    new Rebase(viewStream, SnapshotView.get(viewroot), bl).rebase(true);
+                }
+
+                Util.makeView(viewStream, entry, listener, loadModule, viewroot, viewtag, true);
+                Files.write(new File(entry, CheckoutTask.UPDATED_FILE).toPath(), loadModule.getBytes("UTF-8"));
+                properties.setProperty("baseline", target);
+                ViewPool.save(entry, properties);
+                refreshed = true;
+            }
+        } catch (Exception e) {
+            listener.getLogger().println("[" + Config.nameShort + "] Unable to refresh the pooled view " + ready.getName() + ": " + e.getMessage());
+            logger.log(Level.WARNING, "Unable to refresh the pooled view " + entry, e);
+            if (!entry.renameTo(new File(ready.getPath() + ViewPool.BROKEN))) {
+                logger.warning("Unable to mark " + entry + " as broken");
+            }
+            return false;
+        }
+
+        if (!entry.renameTo(ready)) {
+            logger.warning("Unable to make " + entry + " ready again");
+            return false;
+        }
+        return refreshed;
+    }
+
+    /**
+     * @param target The fully qualified name of the {@link Baseline} the view is made at, null if it is not known
+     */
+    private void provision(File dir, String target) throws Exception {
+        String id = UUID.randomUUID().toString().substring(0, 8);
+        String viewtag = Util.createAndSanitizeCCUCMViewTag("POOL_" + id);
+        File entry = new File(dir, id + ViewPool.PROVISIONING);
+        if (!entry.mkdir()) {
+            throw new IOException("Unable to create " + entry);
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("key", getKey());
+        properties.setProperty("kind", kind);
+        properties.setProperty("viewtag", viewtag);
+
+        try {
+            listener.getLogger().println("[" + Config.nameShort + "] Making the pooled view " + viewtag);
+            Stream viewStream;
+            if (ViewPool.CHECKOUT.equals(kind)) {
+                Baseline bl = Baseline.get(baseline);
+                bl.load();
+                viewStream = Stream.create(Config.getIntegrationStream(bl, buildProject.isEmpty() ? null : buildProject), "stream:" + viewtag + "@" + bl.getPVob(), true, bl);
+                properties.setProperty("stream", viewStream.getFullyQualifiedName());
+            } else {
+                viewStream = Stream.get(stream);
+                properties.setProperty("stream", stream);
+            }
+            if (target != null) {
+                properties.setProperty("baseline", target);
+            }
+            /* Saved early, so the view and stream can be removed if the rest fails */
+            ViewPool.save(entry, properties);
+
+            File viewroot = new File(entry, "view");
+            Util.makeView(viewStream, entry, listener, loadModule, viewroot, viewtag, true);
+            if (!new File(viewroot, ".view.stg").isDirectory()) {
+                throw new IOException("Pooled views must have their storage in the view root, to be moved to the workspace");
+            }
+            Files.write(new File(entry, CheckoutTask.UPDATED_FILE).toPath(), loadModule.getBytes("UTF-8"));
+        } catch (Exception e) {
+            ViewPool.remove(entry);
+            throw e;
+        }
+
+        if (!entry.renameTo(new File(dir, id))) {
+            ViewPool.remove(entry);
+            throw new IOException("Unable to make " + entry + " ready");
+        }
+    }
+
+    @Override
+    public void checkRoles(RoleChecker roleChecker) throws SecurityException {
+
+    }
+}
@@ -0,0 +1,86 @@
+package net.praqma.hudson.remoting;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import hudson.FilePath.FileCallable;
+import hudson.model.BuildListener;
+import hudson.remoting.VirtualChannel;
+import net.praqma.hudson.Config;
+import org.jenkinsci.remoting.RoleChecker;
+
+/**
+ * Removes the {@link ViewPool}s of an agent that no job wants anymore, because the jobs were deleted or reconfigured, can no
+ * longer run on the agent, or views are no longer pooled. Views being made or adopted are left alone until they are abandoned.
+ * Acts on the pool directory.
+ */
+public class ReclaimViews implements FileCallable<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = Logger.getLogger(ReclaimViews.class.getName());
+
+    private final BuildListener listener;
+    private final Set<String> keys;
+
+    /**
+     * @param listener The listener
+     * @param keys The keys of the pools still wanted on the agent, see {@link ViewPool#key(String, String, String, String)}
+     */
+    public ReclaimViews(BuildListener listener, Set<String> keys) {
+        this.listener = listener;
+        this.keys = new HashSet<>(keys);
+    }
+
+    /**
+     * @return The number of views removed
+     */
+    @Override
+    public Integer invoke(File pool, VirtualChannel channel) throws IOException, InterruptedException {
+        File[] dirs = pool.listFiles();
+        if (dirs == null) {
+            return 0;
+        }
+
+        Set<String> wanted = new HashSet<>();
+        for (String key : keys) {
+            wanted.add(ViewPool.getDir(pool, key).getName());
+        }
+
+        int removed = 0;
+        for (File dir : dirs) {
+            if (!dir.isDirectory() || wanted.contains(dir.getName())) {
+                continue;
+            }
+
+            List<File> ready = ViewPool.getReady(dir);
+            File[] entries = dir.listFiles();
+            if (entries != null) {
+                for (File entry : entries) {
+                    File leased = ready.contains(entry) ? ViewPool.lease(entry) : (ViewPool.isRemovable(entry) ? entry : null);
+                    if (leased != null) {
+                        listener.getLogger().println("[" + Config.nameShort + "] Removing the unused pooled view " + entry.getName());
+                        ViewPool.remove(leased);
+                        removed++;
+                    }
+                }
+            }
+
+            String[] left = dir.list();
+            if (left != null && left.length == 0 && !dir.delete()) {
+                logger.warning("Unable to delete the view pool " + dir);
+            }
+        }
+
+        return removed;
+    }
+
+    @Override
+    public void checkRoles(RoleChecker roleChecker) throws SecurityException {
+
+    }
+}
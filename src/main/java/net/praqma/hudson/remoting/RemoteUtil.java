@@ -2,8 +2,12 @@ package net.praqma.hudson.remoting;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import net.praqma.clearcase.ucm.entities.Baseline;
 import net.praqma.clearcase.ucm.entities.Component;
@@ -16,6 +20,8 @@ import hudson.model.BuildListener;
 import hudson.model.TaskListener;
 import java.util.logging.Logger;
 import net.praqma.hudson.scm.Polling;
+import net.praqma.hudson.scm.StreamScanResult;
+import net.praqma.hudson.scm.StreamTopologyCache;
 import net.praqma.util.structure.Tuple;
 
 public abstract class RemoteUtil {
@@ -42,14 +48,34 @@ public abstract class RemoteUtil {
 	}
 
 	public static UCMEntity loadEntity( FilePath workspace, UCMEntity entity, boolean slavePolling ) throws IOException, InterruptedException {
+		return loadEntity( workspace, entity, slavePolling, 0, 0 );
+	}
+
+	/**
+	 * Load an entity, using the {@link EntityCache} where it is loaded
+	 * @param ttl The time to live of cached immutable entities in milliseconds, less than 1 disables the cache
+	 * @param mutableTtl The time to live of cached {@link Baseline}s and {@link Stream}s in milliseconds
+	 */
+	public static UCMEntity loadEntity( FilePath workspace, UCMEntity entity, boolean slavePolling, long ttl, long mutableTtl ) throws IOException, InterruptedException {
 		if( slavePolling ) {
-            return workspace.act( new LoadEntity( entity ) );
+            return workspace.act( new LoadEntity( entity, ttl, mutableTtl ) );
         } else {
-            LoadEntity t = new LoadEntity( entity );
+            LoadEntity t = new LoadEntity( entity, ttl, mutableTtl );
             return t.invoke( null, null );
         }
 	}
 
+	/**
+	 * @return The statistics of the {@link EntityCache} on the agent of the workspace, and of the master if it is not the same
+	 */
+	public static String getEntityCacheStatistics( FilePath workspace ) throws IOException, InterruptedException {
+		String remote = workspace.act( new GetEntityCacheStatistics() );
+		if( workspace.isRemote() ) {
+			return remote + " on the agent, " + EntityCache.getInstance() + " on the master";
+		}
+		return remote;
+	}
+
 	public static String getClearCaseVersion( FilePath workspace, Project project ) throws IOException, InterruptedException {
 		return workspace.act( new GetClearCaseVersion( project ) );
 	}
@@ -59,21 +85,60 @@ public abstract class RemoteUtil {
 
 	}
 
-    public static List<Stream> getRelatedStreams( FilePath workspace, TaskListener listener, Stream stream, Polling polling, boolean slavePolling, boolean multisitePolling, String hLinkFeedFrom ) throws IOException, InterruptedException {
+    public static List<Stream> getRelatedStreams( FilePath workspace, TaskListener listener, Stream stream, Polling polling, boolean slavePolling, boolean multisitePolling, String hLinkFeedFrom, long topologyTtl ) throws IOException, InterruptedException {
+        StreamTopologyCache topology = StreamTopologyCache.getInstance();
+        List<Stream> streams = topology.get( stream, polling, multisitePolling, hLinkFeedFrom, topologyTtl );
+        if( streams != null ) {
+            return streams;
+        }
+
         if( slavePolling ) {
-            return workspace.act( new GetRelatedStreams( listener, stream, polling, multisitePolling, hLinkFeedFrom) );
+            streams = workspace.act( new GetRelatedStreams( listener, stream, polling, multisitePolling, hLinkFeedFrom) );
         } else {
             GetRelatedStreams t = new GetRelatedStreams( listener, stream, polling, multisitePolling, hLinkFeedFrom );
-            return t.invoke( null, null );
+            streams = t.invoke( null, null );
         }
+
+        if( topologyTtl > 0 ) {
+            topology.put( stream, polling, multisitePolling, hLinkFeedFrom, streams );
+        }
+        return streams;
     }
 
 
+    public static LinkedHashMap<String, StreamScanResult> getRelatedStreamsBaselines( FilePath workspace, TaskListener listener, Stream stream, Polling polling, Component component, Project.PromotionLevel plevel, boolean slavePolling, boolean multisitePolling, String hLinkFeedFrom, long topologyTtl, Date date, Map<String, Date> since, boolean probe, Set<String> skip, int concurrency, long streamTimeout ) throws IOException, InterruptedException {
+        StreamTopologyCache topology = StreamTopologyCache.getInstance();
+        List<Stream> related = topology.get( stream, polling, multisitePolling, hLinkFeedFrom, topologyTtl );
+
+        GetRelatedStreamsBaselines t = new GetRelatedStreamsBaselines( listener, stream, polling, component, plevel, multisitePolling, hLinkFeedFrom, related, date, since, probe, skip, concurrency, streamTimeout );
+        LinkedHashMap<String, StreamScanResult> results;
+        if( slavePolling ) {
+            results = workspace.act( t );
+        } else {
+            results = t.invoke( null, null );
+        }
+
+        /* Remember the streams resolved by the call */
+        if( related == null && topologyTtl > 0 ) {
+            List<Stream> streams = new ArrayList<>();
+            for( StreamScanResult result : results.values() ) {
+                streams.add( result.getStream() );
+            }
+            topology.put( stream, polling, multisitePolling, hLinkFeedFrom, streams );
+        }
+
+        return results;
+    }
+
     public static List<Baseline> getRemoteBaselinesFromStream( FilePath workspace, Component component, Stream stream, Project.PromotionLevel plevel, boolean slavePolling, boolean multisitePolling, Date date ) throws IOException, InterruptedException {
+        return getRemoteBaselinesFromStream( workspace, component, stream, plevel, slavePolling, multisitePolling, date, false );
+    }
+
+    public static List<Baseline> getRemoteBaselinesFromStream( FilePath workspace, Component component, Stream stream, Project.PromotionLevel plevel, boolean slavePolling, boolean multisitePolling, Date date, boolean probe ) throws IOException, InterruptedException {
         if( slavePolling ) {
-            return workspace.act( new GetRemoteBaselineFromStream( component, stream, plevel, multisitePolling, date ) );
+            return workspace.act( new GetRemoteBaselineFromStream( component, stream, plevel, multisitePolling, date, probe ) );
         } else {
-            GetRemoteBaselineFromStream t = new GetRemoteBaselineFromStream( component, stream, plevel, multisitePolling, date );
+            GetRemoteBaselineFromStream t = new GetRemoteBaselineFromStream( component, stream, plevel, multisitePolling, date, probe );
             return t.invoke( null, null );
         }
     }
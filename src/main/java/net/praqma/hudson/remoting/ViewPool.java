@@ -0,0 +1,320 @@
+package net.praqma.hudson.remoting;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.praqma.clearcase.cleartool.Cleartool;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.hudson.Config;
+
+/**
+ * A pool of snapshot views on an agent, created and loaded ahead of the builds that need them. The first build of a job on
+ * an agent leases a view from the pool and adopts it, instead of creating and loading one of its own. The adopted view stays
+ * with the job, and the pool is filled up again by {@link ProvisionViews}.
+ * <p>
+ * The pool lives in {@link #DIR} in the root of the agent. Each key has a directory of entries, and each entry holds the
+ * view, the {@link CheckoutTask#UPDATED_FILE} and {@link #PROPERTIES}. The name of an entry ends with {@link #PROVISIONING}
+ * while it is made, with {@link #LEASED} while it is adopted, and with {@link #BROKEN} if it could not be adopted.
+ */
+public class ViewPool {
+
+    private static final Logger logger = Logger.getLogger(ViewPool.class.getName());
+
+    public static final String DIR = "ccucm-view-pool";
+
+    /**
+     * A view on a read only development {@link Stream} of its own, adopted by {@link CheckoutTask}
+     */
+    public static final String CHECKOUT = "checkout";
+
+    /**
+     * A view on the {@link Stream} itself, adopted by {@link net.praqma.hudson.remoting.deliver.MakeDeliverView}
+     */
+    public static final String DELIVER = "deliver";
+
+    static final String PROPERTIES = "entry.properties";
+    static final String PROVISIONING = ".provisioning";
+    static final String LEASED = ".leased";
+    static final String BROKEN = ".broken";
+
+    /**
+     * Entries still being made or adopted after this long were abandoned
+     */
+    private static final long ABANDONED = TimeUnit.DAYS.toMillis(1);
+
+    private ViewPool() {
+    }
+
+    /**
+     * @param kind {@link #CHECKOUT} or {@link #DELIVER}
+     * @param stream The fully qualified name of the {@link Stream} the job builds from
+     * @param loadModule The load modules of the job
+     * @param buildProject The project of the development {@link Stream}s, only used for {@link #CHECKOUT}
+     * @return The key of the views a job can adopt
+     */
+    public static String key(String kind, String stream, String loadModule, String buildProject) {
+        String key = kind + "|" + stream + "|" + loadModule.toUpperCase();
+        if (CHECKOUT.equals(kind)) {
+            key += "|" + (buildProject == null ? "" : buildProject);
+        }
+        return key;
+    }
+
+    static File getDir(File pool, String key) {
+        return new File(pool, hudson.Util.getDigestOf(key));
+    }
+
+    /**
+     * @return The entries of the key that are ready to be leased
+     */
+    static List<File> getReady(File dir) {
+        List<File> ready = new ArrayList<>();
+        File[] entries = dir.listFiles();
+        if (entries != null) {
+            for (File entry : entries) {
+                if (entry.isDirectory() && !entry.getName().contains(".")) {
+                    ready.add(entry);
+                }
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * @return True if the entry is broken, or was abandoned while it was made or adopted
+     */
+    static boolean isRemovable(File entry) {
+        String name = entry.getName();
+        boolean abandoned = (name.endsWith(PROVISIONING) || name.endsWith(LEASED)) && System.currentTimeMillis() - entry.lastModified() > ABANDONED;
+        return name.endsWith(BROKEN) || abandoned;
+    }
+
+    /**
+     * Lease a ready entry, so no build adopts it
+     * @return The leased entry, null if a build leased it first
+     */
+    static File lease(File ready) {
+        File entry = new File(ready.getPath() + LEASED);
+        return ready.renameTo(entry) ? entry : null;
+    }
+
+    /**
+     * Move a view from the pool to the workspace of a job, and give it the view tag of the job. A {@link #CHECKOUT} view
+     * also gives its development {@link Stream} the name the job uses, see {@link CheckoutTask}.
+     *
+     * @param pool The pool directory, null if there is no pool
+     * @param key The key of the view, see {@link #key(String, String, String, String)}
+     * @param workspace The workspace
+     * @param viewtag The view tag of the job
+     * @param out The console
+     * @return True if a view was adopted. If not, the job must make its own view.
+     */
+    public static boolean adopt(String pool, String key, File workspace, String viewtag, PrintStream out) {
+        if (pool == null) {
+            return false;
+        }
+
+        File viewroot = new File(workspace, "view");
+        if (viewroot.exists()) {
+            return false;
+        }
+
+        for (File ready : getReady(getDir(new File(pool), key))) {
+            /* Renaming the entry is the lease, only one build gets it */
+            File entry = lease(ready);
+            if (entry == null) {
+                continue;
+            }
+
+            try {
+                adopt(entry, key, workspace, viewtag);
+            } catch (IOException e) {
+                out.println("[" + Config.nameShort + "] Unable to adopt the pooled view " + ready.getName() + ": " + e.getMessage());
+                logger.log(Level.WARNING, "Unable to adopt the pooled view " + entry, e);
+                if (!entry.renameTo(new File(ready.getPath() + BROKEN))) {
+                    logger.warning("Unable to mark " + entry + " as broken");
+                }
+                return false;
+            }
+
+            out.println("[" + Config.nameShort + "] Adopted the pooled view " + ready.getName());
+            try {
+                hudson.Util.deleteRecursive(entry);
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Unable to delete " + entry, e);
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    private static void adopt(File entry, String key, File workspace, String viewtag) throws IOException {
+        Properties properties = load(entry);
+        if (!key.equals(properties.getProperty("key"))) {
+            throw new IOException("The view was made for " + properties.getProperty("key"));
+        }
+        String pooltag = properties.getProperty("viewtag");
+
+        File source = new File(entry, "view");
+        if (!new File(source, ".view.stg").isDirectory()) {
+            throw new IOException("The view storage is not in the view root");
+        }
+
+        /* The view server must not run while its storage is moved */
+        try {
+            Cleartool.run("endview -server " + pooltag);
+        } catch (Exception e) {
+            throw new IOException("Unable to stop the view server of " + pooltag, e);
+        }
+
+        File viewroot = new File(workspace, "view");
+        if (!source.renameTo(viewroot)) {
+            throw new IOException("Unable to move the view to " + viewroot);
+        }
+
+        try {
+            String storage = new File(viewroot, ".view.stg").getAbsolutePath();
+            Cleartool.run("register -view -replace \"" + storage + "\"");
+            /* The view is never without a tag, the pool tag is only removed once the view has the tag of the job */
+            Cleartool.run("mktag -view -replace -tag " + viewtag + " \"" + storage + "\"");
+            try {
+                Cleartool.run("rmtag -view " + pooltag);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Unable to remove the view tag " + pooltag, e);
+            }
+            if (CHECKOUT.equals(properties.getProperty("kind"))) {
+                Cleartool.run("rename " + properties.getProperty("stream") + " " + viewtag);
+            }
+        } catch (Exception e) {
+            /* Put the view back, so it is removed with the broken entry */
+            if (!viewroot.renameTo(source)) {
+                logger.warning("Unable to move " + viewroot + " back to " + source);
+            }
+            throw new IOException("Unable to retag the view " + pooltag + " as " + viewtag, e);
+        }
+
+        File updated = new File(entry, CheckoutTask.UPDATED_FILE);
+        if (updated.exists() && !updated.renameTo(new File(workspace, CheckoutTask.UPDATED_FILE))) {
+            logger.fine("Unable to move " + updated + " to " + workspace);
+        }
+    }
+
+    /**
+     * Remove the view of an entry, its development {@link Stream} and the entry
+     */
+    static void remove(File entry) {
+        Properties properties = new Properties();
+        try {
+            properties = load(entry);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Unable to read the properties of " + entry, e);
+        }
+
+        File view = new File(entry, "view");
+        if (view.exists()) {
+            try {
+                Cleartool.run("rmview -force \"" + view.getAbsolutePath() + "\"");
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Unable to remove the view " + view, e);
+            }
+        }
+
+        String stream = properties.getProperty("stream");
+        if (CHECKOUT.equals(properties.getProperty("kind")) && stream != null) {
+            try {
+                Cleartool.run("rmstream -force " + stream);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Unable to remove the stream " + stream, e);
+            }
+        }
+
+        try {
+            hudson.Util.deleteRecursive(entry);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to delete " + entry, e);
+        }
+    }
+
+    static Properties load(File entry) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(new File(entry, PROPERTIES))) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    static void save(File entry, Properties properties) throws IOException {
+        try (OutputStream out = new FileOutputStream(new File(entry, PROPERTIES))) {
+            properties.store(out, null);
+        }
+    }
+
+    /**
+     * The views of a key on an agent
+     */
+    public static class Occupancy implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int ready;
+        private final int wanted;
+        private final int provisioned;
+        private final int refreshed;
+        private final int removed;
+
+        public Occupancy(int ready, int wanted, int provisioned, int refreshed, int removed) {
+            this.ready = ready;
+            this.wanted = wanted;
+            this.provisioned = provisioned;
+            this.refreshed = refreshed;
+            this.removed = removed;
+        }
+
+        public int getReady() {
+            return ready;
+        }
+
+        public int getWanted() {
+            return wanted;
+        }
+
+        /**
+         * @return The number of views made in the last round, one for every view leased since
+         */
+        public int getProvisioned() {
+            return provisioned;
+        }
+
+        /**
+         * @return The number of ready views rebased or updated in the last round
+         */
+        public int getRefreshed() {
+            return refreshed;
+        }
+
+        /**
+         * @return The number of broken, abandoned or surplus views removed in the last round
+         */
+        public int getRemoved() {
+            return removed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s of %s ready", ready, wanted);
+        }
+    }
+}
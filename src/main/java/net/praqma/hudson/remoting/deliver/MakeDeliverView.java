@@ -5,8 +5,10 @@ import hudson.model.BuildListener;
 import hudson.remoting.VirtualChannel;
 import net.praqma.clearcase.ucm.entities.Stream;
 import net.praqma.clearcase.ucm.view.SnapshotView;
+import net.praqma.clearcase.ucm.view.UCMView;
 import net.praqma.hudson.Util;
 import net.praqma.hudson.exception.ScmException;
+import net.praqma.hudson.remoting.ViewPool;
 import org.jenkinsci.remoting.RoleChecker;
 
 import java.io.File;
@@ -27,6 +29,7 @@ public class MakeDeliverView implements FilePath.FileCallable<SnapshotView> {
     private final String jobName;
     private final String loadModule;
     private final Stream destinationStream;
+    private String viewPool;
 
     public MakeDeliverView( BuildListener listener, String jobName, String loadModule, Stream destinationStream ) {
         this.listener = listener;
@@ -48,10 +51,21 @@ public class MakeDeliverView implements FilePath.FileCallable<SnapshotView> {
     private SnapshotView makeDeliverView( Stream stream, File workspace ) throws ScmException {
         viewtag = Util.createViewTag( jobName, stream );
         File viewroot = new File( workspace, "view" );
+        if( viewPool != null && !viewroot.exists() && !UCMView.viewExists( viewtag ) ) {
+            String key = ViewPool.key( ViewPool.DELIVER, stream.getFullyQualifiedName(), loadModule, null );
+            ViewPool.adopt( viewPool, key, workspace, viewtag, listener.getLogger() );
+        }
         SnapshotView view = Util.makeView( stream, workspace, listener, loadModule, viewroot, viewtag, true );
         return view;
     }
 
+    /**
+     * @param viewPool The {@link ViewPool} directory of the agent, null if views are not pooled
+     */
+    public void setViewPool( String viewPool ) {
+        this.viewPool = viewPool;
+    }
+
     @Override
     public void checkRoles(RoleChecker roleChecker) throws SecurityException {
 
@@ -18,8 +18,13 @@ import hudson.util.ListBoxModel;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -36,9 +41,11 @@ import net.praqma.clearcase.ucm.entities.Project;
 import net.praqma.clearcase.ucm.view.SnapshotView;
 import net.praqma.hudson.CCUCMBuildAction;
 import net.praqma.hudson.Config;
+import net.praqma.hudson.PhaseStatistics;
 import net.praqma.hudson.PromotionListAction;
 import net.praqma.hudson.Util;
 import net.praqma.hudson.exception.CCUCMException;
+import net.praqma.hudson.exception.ChangeLogWriteException;
 import net.praqma.hudson.exception.DeliverNotCancelledException;
 import net.praqma.hudson.exception.TemplateException;
 import net.praqma.hudson.nametemplates.FileFoundable;
@@ -62,6 +69,7 @@ import net.praqma.util.execute.AbnormalProcessTerminationException;
 import net.praqma.util.structure.Tuple;
 import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
+import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 
 import org.apache.commons.lang.exception.ExceptionUtils;
@@ -80,6 +88,10 @@ public class CCUCMScm extends SCM {
 
     public static final String HLINK_DEFAULT = "AlternateDeliverTarget";
     private static final Logger logger = Logger.getLogger(CCUCMScm.class.getName());
+    /**
+     * The number of builds looked back through for the polling watermarks
+     */
+    private static final int WATERMARK_LOOKBACK = 20;
     
     private Boolean multisitePolling;
     private String loadModule;
@@ -224,6 +236,16 @@ public class CCUCMScm extends SCM {
     
     @Override
     public boolean checkout(AbstractBuild<?, ?> build, Launcher launcher, FilePath workspace, BuildListener listener, File changelogFile) throws IOException, InterruptedException {
+        try {
+            return performCheckout(build, workspace, listener, changelogFile);
+        } catch (IOException e) {
+            /* ClearCase may have gone away, check it again next time */
+            ClearCaseCheckCache.getInstance().invalidate(workspace.getChannel());
+            throw e;
+        }
+    }
+
+    private boolean performCheckout(AbstractBuild<?, ?> build, FilePath workspace, BuildListener listener, File changelogFile) throws IOException, InterruptedException {
         /* Prepare job variables */
         jobName = build.getParent().getDisplayName().replace(' ', '_');
 
@@ -240,7 +262,7 @@ public class CCUCMScm extends SCM {
 
         /* Check for ClearCase on remote */
         try {
-            workspace.act(new RemoteClearCaseCheck());
+            ClearCaseCheckCache.getInstance().check(workspace, getClearCaseCheckTtl() * 1000L);
         } catch (AbnormalProcessTerminationException e) {
             build.setDescription(e.getMessage());
             throw e;
@@ -272,7 +294,9 @@ public class CCUCMScm extends SCM {
             logger.fine("Baseline parameter: " + baselineInput);
             action.setPolling(new Polling(PollingType.none));            
             try {
+                long start = System.currentTimeMillis();
                 resolveBaselineInput(build, baselineInput, action, listener);
+                action.time("checkout.resolveBaseline", start);
             } catch (Exception e) {
                 logger.log(Level.WARNING, "Resolving baseline input failed", e);
                 Util.println(out, "No Baselines found");
@@ -281,7 +305,9 @@ public class CCUCMScm extends SCM {
             out.println("[" + Config.nameShort + "] Polling streams: " + _getPolling().toString());
             try {                
                 //Set the result
+                long start = System.currentTimeMillis();
                 Result r = resolveBaseline(build, build.getProject(), action, listener);
+                action.time("checkout.resolveBaseline", start);
                 if(r != null) {
                     build.setResult(r);
                 }
@@ -330,6 +356,15 @@ public class CCUCMScm extends SCM {
 
         /* Try to save */
         build.save();
+        LastBaselineIndex.update(build);
+
+        if (getEntityCacheTtl() > 0 || getEntityCacheMutableTtl() > 0) {
+            try {
+                out.println("[" + Config.nameShort + "] Entity cache: " + RemoteUtil.getEntityCacheStatistics(workspace));
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Unable to get the entity cache statistics", e);
+            }
+        }
 
         boolean result = true;
 
@@ -405,7 +440,9 @@ public class CCUCMScm extends SCM {
             try {
                 logger.fine("Starting deliver");
                 StartDeliver sd = new StartDeliver(listener, state.getStream(), state.getBaseline(), state.getSnapshotView(), loadModule, state.doForceDeliver(), state.doRemoveViewPrivateFiles());
+                long start = System.currentTimeMillis();
                 workspace.act(sd);
+                state.time("checkout.deliver", start);
 
                 consoleOutput.println("[" + Config.nameShort + "] Deliver successful");
 
@@ -485,7 +522,9 @@ public class CCUCMScm extends SCM {
                     consoleOutput.println(String.format("%s * %s","[" + Config.nameShort + "]", blstruct.getNormalizedName()));
                 }
                 
+                long start = System.currentTimeMillis();
                 build.getWorkspace().act(new RebaseTask(state.getStream(), state.getRebaseTargets(), listener, state.getViewTag(), false));
+                state.time("checkout.pollRebase", start);
             } catch (Exception ex) {
                 logger.log(Level.SEVERE, "Unable to begin rebase on stream"+state.getStream(), ex);
                 throw new AbortException("Unable to begin rebase on stream "+state.getStream());
@@ -548,22 +587,19 @@ public class CCUCMScm extends SCM {
     private boolean initializeWorkspace(AbstractBuild<?, ?> build, FilePath workspace, File changelogFile, BuildListener listener, CCUCMBuildAction action) throws IOException, InterruptedException {
         PrintStream consoleOutput = listener.getLogger();
         CheckoutTask ct = new CheckoutTask(listener, jobName, action.getStream(), loadModule, action.getBaseline(), buildProject, (_getPlevel() == null), action.doRemoveViewPrivateFiles());
+        ct.setViewPool(getViewPool(workspace));
+        long start = System.currentTimeMillis();
         EstablishResult er = workspace.act(ct);
+        action.time("checkout.checkoutTask", start);
+        action.addTimings(er.getTimings());
 
-        String changelog = Util.createChangelog(build, er.getActivities(), action.getBaseline(), trimmedChangeSet, er.getView().getViewRoot(), er.getView().getReadOnlyLoadLines(), discard);
+        /* Write change log */
+        start = System.currentTimeMillis();
+        writeChangeLog(build, er.getActivities(), action.getBaseline(), er.getView().getViewRoot(), er.getView().getReadOnlyLoadLines(), true, changelogFile, consoleOutput);
+        action.time("checkout.changelog", start);
         action.setActivities(er.getActivities());
 
         this.viewtag = er.getViewtag();
-
-        /* Write change log */
-        try {
-            FileOutputStream fos = new FileOutputStream(changelogFile);
-            fos.write(changelog.getBytes());
-            fos.close();
-        } catch (IOException e) {
-            logger.fine("Could not write change log file");
-            consoleOutput.println("[" + Config.nameShort + "] Could not write change log file");
-        }
         
         return true;
     }
@@ -588,7 +624,9 @@ public class CCUCMScm extends SCM {
         action.setBaseline(Baseline.get(baselinename));
 
         /* Load the baseline */
-        action.setBaseline((Baseline) RemoteUtil.loadEntity(build.getWorkspace(), action.getBaseline(), true));
+        long start = System.currentTimeMillis();
+        action.setBaseline((Baseline) loadEntity(build.getWorkspace(), action.getBaseline(), true));
+        action.time("checkout.entityLoad", start);
 
         action.setStream(action.getBaseline().getStream());
         consoleOutput.println("[" + Config.nameShort + "] Starting parameterized build with a Baseline.");
@@ -651,13 +689,21 @@ public class CCUCMScm extends SCM {
         printParameters(out);
 
         /* The Stream must be loaded */
-        action.setStream((Stream) RemoteUtil.loadEntity(build.getWorkspace(), action.getStream(), getSlavePolling()));
+        long start = System.currentTimeMillis();
+        action.setStream((Stream) loadEntity(build.getWorkspace(), action.getStream(), getSlavePolling()));
+        action.time("checkout.entityLoad", start);
 
         List<Baseline> baselines = null;
 
+        /* Reuse what the poll that scheduled this build found, if it is still fresh */
+        PollingHandoff handoff = PollingHandoff.take(project.getFullName(), getPollingSignature(), build, getHandoffFreshness() * 1000L);
+        if (handoff != null) {
+            out.println("[" + Config.nameShort + "] Using the baselines found by polling " + (handoff.getAge() / 1000) + " seconds ago");
+        }
+
         /* We need to discriminate on promotion level, JENKINS-16620 */
         Date date = null;
-        if (isUseLatestAlways(mode)) {
+        if (handoff == null && isUseLatestAlways(mode)) {
             CCUCMBuildAction lastAction = getLastAction(project);
             if (lastAction != null) {
                 date = lastAction.getBaseline().getDate();
@@ -667,25 +713,51 @@ public class CCUCMScm extends SCM {
         /* Find the Baselines and store them, none of the methods returns null! At least an empty list */
         /* Old skool self polling */        
 
+        start = System.currentTimeMillis();
         if (_getPolling().isPollingSelf()) {
-            baselines = getValidBaselinesFromStream(build.getWorkspace(), _getPlevel(), action.getStream(), action.getComponent(), date);
+            if (handoff != null) {
+                baselines = handoff.getBaselines();
+            } else {
+                baselines = getValidBaselinesFromStream(build.getWorkspace(), _getPlevel(), action.getStream(), action.getComponent(), date);
+                action.time("checkout.baselineListing", start);
+            }
         } else if(_getPolling().isPollingOther()) {
-            baselines = getBaselinesFromStreams(build.getWorkspace(), listener, out, action.getStream(), action.getComponent(), _getPolling(), date);
+            if (handoff != null) {
+                baselines = handoff.getBaselines();
+            } else {
+                baselines = getBaselinesFromStreams(build.getWorkspace(), listener, out, action.getStream(), action.getComponent(), _getPolling(), date, null, false, null);
+                action.time("checkout.relatedStreams", start);
+            }
         } else if(_getPolling().isPollingSubscribe()) {            
             try {
-                //Poll self method of finding baselines
-                List<Baseline> currentBls = RemoteUtil.getRemoteBaselinesFromStream(build.getWorkspace(), action.getComponent(), action.getStream(), _getPlevel(), this.getSlavePolling(), this.getMultisitePolling(), date);
-                
-                //Get our candidate baseline
-                Baseline blCandidate = selectBaseline(currentBls, mode, build.getWorkspace());
+                Baseline blCandidate;
+                List<Baseline> consideredBaselines;
+                Tuple<Result,List<Baseline>> rez;
+
+                if (handoff != null) {
+                    blCandidate = handoff.getCandidate();
+                    consideredBaselines = handoff.getConsidered();
+                    rez = handoff.getSubscribeResult();
+                } else {
+                    //Poll self method of finding baselines
+                    List<Baseline> currentBls = RemoteUtil.getRemoteBaselinesFromStream(build.getWorkspace(), action.getComponent(), action.getStream(), _getPlevel(), this.getSlavePolling(), this.getMultisitePolling(), date);
+                    action.time("checkout.baselineListing", start);
+
+                    //Get our candidate baseline
+                    blCandidate = selectBaseline(currentBls, mode, build.getWorkspace());
+
+                    //Get baselines on the currently selected components
+                    start = System.currentTimeMillis();
+                    PollSubscribeMode subMode = (PollSubscribeMode)mode;
+                    consideredBaselines = subMode.getBaselinesToConsider(blCandidate, build.getWorkspace(), getSlavePolling());
+                    rez = getValidBaselinesFromStreamWithSubscribe(currentBls, consideredBaselines, build.getWorkspace(), getSlavePolling());
+                    action.time("checkout.subscribe", start);
+                }
+
                 if(blCandidate != null) {
                     logger.fine( String.format( "Examining baseline candidate %s", blCandidate ) );
                 }
                 
-                //Get baselines on the currently selected components
-                PollSubscribeMode subMode = (PollSubscribeMode)mode;
-                List<Baseline> consideredBaselines = subMode.getBaselinesToConsider(blCandidate, build.getWorkspace(), getSlavePolling());
-                
                 //We only promote those baselines that was created as a consequence of the parent. That means that any labelled baselines should get matched.
                 //This is done by convention.
                 ArrayList<Baseline> selections = new ArrayList<>();                
@@ -699,9 +771,7 @@ public class CCUCMScm extends SCM {
                 
                 //Add these baselines to an action.
                 build.addAction(new PromotionListAction(selections));
-                
 
-                Tuple<Result,List<Baseline>> rez = getValidBaselinesFromStreamWithSubscribe(currentBls, consideredBaselines, build.getWorkspace(), getSlavePolling());
                 baselines = rez.t2;
                 r = rez.t1;
                 
@@ -713,9 +783,15 @@ public class CCUCMScm extends SCM {
                 throw new IOException("Error in resolveBaseline, cleartool exception", ex);
             }
         } else {            
-            PollRebaseMode md = (PollRebaseMode)mode;
-            List<String> parsedList = parseExclusionList(build.getWorkspace(), md.getExcludeList());
-            Tuple<List<Baseline>,List<Baseline>> results = getBaselinesForPollRebase(build.getWorkspace(), listener, action.getStream(), parsedList);
+            Tuple<List<Baseline>,List<Baseline>> results;
+            if (handoff != null) {
+                results = handoff.getRebaseResult();
+            } else {
+                PollRebaseMode md = (PollRebaseMode)mode;
+                List<String> parsedList = parseExclusionList(build.getWorkspace(), md.getExcludeList());
+                results = getBaselinesForPollRebase(build.getWorkspace(), listener, action.getStream(), parsedList);
+                action.time("checkout.rebaseCandidates", start);
+            }
             baselines = results.t1;
             action.setRebaseTargets(baselines);
             action.setNewFoundationStructure(results.t2);            
@@ -727,7 +803,9 @@ public class CCUCMScm extends SCM {
         }        
 
         /* Select and load baseline */
+        start = System.currentTimeMillis();
         Baseline blSelected = selectBaseline(baselines, mode, build.getWorkspace());
+        action.time("checkout.entityLoad", start);
         action.setBaseline(blSelected);
         
         
@@ -776,7 +854,7 @@ public class CCUCMScm extends SCM {
             if(!StringUtils.isBlank(s)) {
                 if(!s.startsWith("component")) {
                     try {
-                        RemoteUtil.loadEntity(workspace, Component.get(s), getSlavePolling());
+                        loadEntity(workspace, Component.get(s), getSlavePolling());
                     } catch (Exception ex) {
                         throw new AbortException(String.format("Unable to load component %s", s));
                     }
@@ -799,7 +877,10 @@ public class CCUCMScm extends SCM {
         logger.fine("Initializing deliver view");
         FilePath workspace = build.getWorkspace();
         MakeDeliverView mdv = new MakeDeliverView(listener, build.getParent().getDisplayName(), loadModule, state.getStream());
+        mdv.setViewPool(getViewPool(workspace));
+        long start = System.currentTimeMillis();
         SnapshotView view = workspace.act(mdv);
+        state.time("checkout.makeDeliverView", start);
         state.setViewPath(view.getViewRoot());
         state.setViewTag(view.getViewtag());
         state.setSnapshotView(view);        
@@ -825,19 +906,37 @@ public class CCUCMScm extends SCM {
         logger.fine(String.format( "Trim changeset = %s", trimmedChangeSet ) );
 
         GetChanges gc = new GetChanges(listener, state.getStream(), state.getBaseline(), snapshotView.getPath());
+        long start = System.currentTimeMillis();
         List<Activity> activities = workspace.act(gc);
+        state.time("checkout.getChanges", start);
 
-        String changelog = Util.createChangelog(build, activities, state.getBaseline(), trimmedChangeSet, new File(snapshotView.getPath()), snapshotView.getReadOnlyLoadLines(), discard, getSlavePolling());
+        /* Write change log */
+        start = System.currentTimeMillis();
+        writeChangeLog(build, activities, state.getBaseline(), new File(snapshotView.getPath()), snapshotView.getReadOnlyLoadLines(), getSlavePolling(), changelogFile, consoleOutput);
+        state.time("checkout.changelog", start);
         state.setActivities(activities);
+    }
 
-        /* Write change log */
+    /**
+     * Stream the change log to the change log file as it is generated. A change log that could not be written is removed, so
+     * the build gets an empty change log instead of a broken one. A change log that could not be generated fails the build.
+     */
+    private void writeChangeLog(AbstractBuild<?, ?> build, List<Activity> activities, Baseline baseline, File viewRoot, List<String> readOnly, boolean useSlaves, File changelogFile, PrintStream consoleOutput) throws IOException, InterruptedException {
         try {
-            FileOutputStream fos = new FileOutputStream(changelogFile);
-            fos.write(changelog.getBytes());
-            fos.close();
-        } catch (IOException e) {
-            logger.fine("Could not write change log file");
+            Util.writeChangelog(build, activities, baseline, trimmedChangeSet, viewRoot, readOnly, discard, useSlaves, getChangelogThreads(), changelogFile);
+        } catch (ChangeLogWriteException e) {
+            logger.log(Level.FINE, "Could not write change log file", e);
             consoleOutput.println("[" + Config.nameShort + "] Could not write change log file");
+            deleteChangeLog(changelogFile);
+        } catch (IOException e) {
+            deleteChangeLog(changelogFile);
+            throw e;
+        }
+    }
+
+    private static void deleteChangeLog(File changelogFile) {
+        if (changelogFile.exists() && !changelogFile.delete()) {
+            logger.warning("Unable to delete the change log file " + changelogFile);
         }
     }
 
@@ -887,12 +986,39 @@ public class CCUCMScm extends SCM {
      * @throws java.lang.InterruptedException Generic system error
      */
     @Override
-    public PollingResult compareRemoteRevisionWith(AbstractProject<?, ?> project, Launcher launcher, FilePath workspace, TaskListener listener, SCMRevisionState rstate) throws IOException, InterruptedException {
+    public PollingResult compareRemoteRevisionWith(final AbstractProject<?, ?> project, Launcher launcher, final FilePath workspace, final TaskListener listener, final SCMRevisionState rstate) throws IOException, InterruptedException {
+        /* Right after a restart, the job waits for its slot */
+        long warmup = PollingWarmup.getInstance().getRemaining(project.getFullName());
+        if (warmup > 0) {
+            listener.getLogger().println("[" + Config.nameShort + "] Jenkins was restarted, this job polls in " + warmup / 1000 + " seconds");
+            return new PollingResult(rstate, rstate, PollingResult.Change.NONE);
+        }
 
-        workspace.act(new RemoteClearCaseCheck());
+        try {
+            /* Poll on threads of our own, so a hanging cleartool cannot hold the polling threads of Jenkins */
+            return PollingExecutor.getInstance().run(project.getFullName(), new Callable<PollingResult>() {
+                @Override
+                public PollingResult call() throws Exception {
+                    return poll(project, workspace, listener, rstate);
+                }
+            }, getPollingThreads(), getPollingTimeout() * 1000L);
+        } catch (RejectedExecutionException e) {
+            listener.getLogger().println("[" + Config.nameShort + "] " + e.getMessage() + ", skipping this poll");
+            return new PollingResult(rstate, rstate, PollingResult.Change.NONE);
+        } catch (TimeoutException e) {
+            listener.getLogger().println("[" + Config.nameShort + "] Polling timed out after " + getPollingTimeout() + " seconds and was cancelled");
+            ClearCaseCheckCache.getInstance().invalidate(workspace.getChannel());
+            throw new AbortException("Polling timed out after " + getPollingTimeout() + " seconds");
+        } catch (IOException e) {
+            /* ClearCase may have gone away, check it again next time */
+            ClearCaseCheckCache.getInstance().invalidate(workspace.getChannel());
+            throw e;
+        }
+    }
 
-        jobName = project.getDisplayName().replace(' ', '_');
-        jobNumber = project.getNextBuildNumber();
+    private PollingResult poll(AbstractProject<?, ?> project, FilePath workspace, TaskListener listener, SCMRevisionState rstate) throws IOException, InterruptedException {
+
+        ClearCaseCheckCache.getInstance().check(workspace, getClearCaseCheckTtl() * 1000L);
 
         PollingResult p = PollingResult.NO_CHANGES;
 
@@ -939,6 +1065,7 @@ public class CCUCMScm extends SCM {
             printParameters(out);
 
             List<Baseline> baselines = null;
+            PollingHandoff handoff = null;
 
             Date date = null;
             if (isUseLatestAlways(mode)) {
@@ -948,33 +1075,82 @@ public class CCUCMScm extends SCM {
                 }
             }
 
+            /* Only look past the baselines already built. Multisite polling can see baselines replicated out of order, so it always looks at all of them */
+            SCMRevisionStateImpl state = null;
+            if (rstate instanceof SCMRevisionStateImpl && !this.getMultisitePolling()) {
+                state = (SCMRevisionStateImpl) rstate;
+            }
+
+            /* When probing, polling only finds out whether there are any new baselines. Checkout lists them all */
+            boolean probe = getPollingProbe();
+
             /* Old skool self polling */
             if (_getPolling().isPollingSelf()) {
-                baselines = getValidBaselinesFromStream(workspace, _getPlevel(), stream, loadedComponent, date);
+                /* A quiet stream is not polled every time */
+                if (getAdaptivePolling() && !StreamActivityTracker.getInstance().isDue(project.getFullName(), stream.getFullyQualifiedName(), getAdaptivePollingMin() * 60000L, getAdaptivePollingMax() * 60000L)) {
+                    out.println("[" + Config.nameShort + "] No recent activity on " + stream.getShortname() + ", skipping this poll");
+                    return new PollingResult(rstate, rstate, PollingResult.Change.NONE);
+                }
+
+                /* Only list past the watermark. Cached queries are keyed on this date, so only jobs listing from the same date share them */
+                Date since = date;
+                if (state != null) {
+                    since = SCMRevisionStateImpl.latest(date, state.getDate(stream, loadedComponent));
+                }
+                long start = System.currentTimeMillis();
+                PollingCache.Listing listing = getPolledBaselinesFromStream(workspace, stream, loadedComponent, since, probe);
+                PhaseStatistics.getInstance().recordSince("poll.baselineListing", start);
+                List<Baseline> listed = listing.getBaselines();
+                baselines = state == null ? listed : state.pastWatermark(stream, loadedComponent, listed);
+                if (getAdaptivePolling()) {
+                    StreamActivityTracker.getInstance().polled(project.getFullName(), stream.getFullyQualifiedName(), baselines);
+                }
+                /* Checkout lists all baselines since the date, it can only use this list if the watermark left none of them out */
+                if (!probe && ObjectUtils.equals(since, date) && baselines.size() == listed.size()) {
+                    handoff = new PollingHandoff(getPollingSignature(), project.getNextBuildNumber(), baselines, listing.getQueried());
+                }
             } else if(_getPolling().isPollingOther()) {
                 /* Find the Baselines and store them */
-                baselines = getBaselinesFromStreams(workspace, listener, out, stream, loadedComponent, _getPolling(), date);
+                long start = System.currentTimeMillis();
+                baselines = getBaselinesFromStreams(workspace, listener, out, stream, loadedComponent, _getPolling(), date, state, probe, project.getFullName());
+                PhaseStatistics.getInstance().recordSince("poll.relatedStreams", start);
+                /* Checkout scans all related streams, it can only use this list if no watermark or quiet stream left baselines out */
+                if (!probe && !getAdaptivePolling() && (state == null || state.getDates(loadedComponent).isEmpty())) {
+                    handoff = new PollingHandoff(getPollingSignature(), project.getNextBuildNumber(), baselines);
+                }
             } else if(_getPolling().isPollingSubscribe()) {
                 try {
                     //Poll self method of finding baselines
-                    List<Baseline> currentBls = RemoteUtil.getRemoteBaselinesFromStream(workspace, loadedComponent, stream, _getPlevel(), this.getSlavePolling(), this.getMultisitePolling(), date);
+                    long start = System.currentTimeMillis();
+                    PollingCache.Listing listing = getPolledBaselinesFromStream(workspace, stream, loadedComponent, date, false);
+                    List<Baseline> currentBls = listing.getBaselines();
+                    PhaseStatistics.getInstance().recordSince("poll.baselineListing", start);
                     logger.fine("Baseline candidates");
                     for(Baseline blz : currentBls) {
                         logger.fine(blz.getShortname());
                     }
-                    //Get our candidate baseline
-                    Baseline blCandidate = selectBaseline(currentBls, mode, workspace);
-                    
-                    if(blCandidate != null) {
-                        logger.fine(String.format( "Current candidate is: %s",blCandidate.getShortname() ));                    
-                    } else {
+
+                    /* Without candidates there is nothing to build, no matter what the subscribed components look like */
+                    if (currentBls.isEmpty()) {
                         logger.fine("No candidate available!");
+                        baselines = currentBls;
+                    } else {
+                        //Get our candidate baseline
+                        Baseline blCandidate = selectBaseline(currentBls, mode, workspace);
+
+                        if(blCandidate != null) {
+                            logger.fine(String.format( "Current candidate is: %s",blCandidate.getShortname() ));                    
+                        }
+
+                        //Get baselines on the currently selected components
+                        start = System.currentTimeMillis();
+                        PollSubscribeMode subMode = (PollSubscribeMode)mode;
+                        List<Baseline> consideredBaselines = subMode.getBaselinesToConsider(blCandidate, workspace, getSlavePolling());                                    
+                        Tuple<Result,List<Baseline>> rez = getValidBaselinesFromStreamWithSubscribe(currentBls, consideredBaselines, workspace, getSlavePolling());
+                        PhaseStatistics.getInstance().recordSince("poll.subscribe", start);
+                        baselines = rez.t2;
+                        handoff = new PollingHandoff(getPollingSignature(), project.getNextBuildNumber(), baselines, listing.getQueried()).setSubscribe(blCandidate, consideredBaselines, rez.t1);
                     }
-                    
-                    //Get baselines on the currently selected components
-                    PollSubscribeMode subMode = (PollSubscribeMode)mode;
-                    List<Baseline> consideredBaselines = subMode.getBaselinesToConsider(blCandidate, workspace, getSlavePolling());                                    
-                    baselines = getValidBaselinesFromStreamWithSubscribe(currentBls, consideredBaselines, workspace, getSlavePolling()).t2;
                 } catch (UnableToInitializeEntityException ex) {
                     logger.log(Level.SEVERE, "Error in getValidBaselinesFromStreamWithSubscribe, unable to initialize entity", ex);
                     throw new IOException("Error in getValidBaselinesFromStreamWithSubscribe, unable to initialize entity", ex);
@@ -984,18 +1160,64 @@ public class CCUCMScm extends SCM {
                 }
             } else {
                 PollRebaseMode md = (PollRebaseMode)mode;
-                baselines = getBaselinesForPollRebase(workspace, listener, stream, parseExclusionList(workspace, md.getExcludeList())).t1;
+                long start = System.currentTimeMillis();
+                Tuple<List<Baseline>,List<Baseline>> results = getBaselinesForPollRebase(workspace, listener, stream, parseExclusionList(workspace, md.getExcludeList()));
+                PhaseStatistics.getInstance().recordSince("poll.rebaseCandidates", start);
+                baselines = results.t1;
+                handoff = new PollingHandoff(getPollingSignature(), project.getNextBuildNumber(), baselines).setRebase(results.t2);
                 logger.fine("Baseline list retrieved...");
             }
 
             if (baselines.size() > 0) {                
-                p = PollingResult.BUILD_NOW;
+                p = new PollingResult(rstate, rstate, PollingResult.Change.SIGNIFICANT);
+                /* The build scheduled by this poll can check out what was found here, unless it only probed */
+                if (handoff != null) {
+                    PollingHandoff.offer(project.getFullName(), handoff);
+                    if (_getPolling().isPollingSelf() && getSpeculativeCheckout()) {
+                        prepareView(project, workspace, handoff.getBaselines());
+                    }
+                } else {
+                    PollingHandoff.clear(project.getFullName());
+                }
+            } else {
+                p = new PollingResult(rstate, rstate, PollingResult.Change.NONE);
+                PollingHandoff.clear(project.getFullName());
             }
 
         }
         return p;
     }
     
+    /**
+     * Rebase and update the view of the build just scheduled, while it waits in the queue. The build most likely runs in the
+     * workspace polling used. Its checkout then finds the view ready, see {@link CheckoutTask}.
+     */
+    private void prepareView(AbstractProject<?, ?> project, final FilePath workspace, final List<Baseline> baselines) {
+        /* A running build uses the view */
+        if (workspace == null || project.isBuilding() || project.isConcurrentBuild()) {
+            return;
+        }
+
+        final File log = new File(project.getRootDir(), "ccucm-prepare.log");
+        final String job = project.getDisplayName().replace(' ', '_');
+        ViewPreparation.getInstance().prepare(project.getFullName(), new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                try (OutputStream out = new FileOutputStream(log)) {
+                    StreamBuildListener listener = new StreamBuildListener(out, Charset.defaultCharset());
+                    long start = System.currentTimeMillis();
+                    Baseline bl = selectBaseline(baselines, mode, workspace);
+                    CheckoutTask ct = new CheckoutTask(listener, job, Stream.get(stream), loadModule, bl, buildProject, (_getPlevel() == null), removeViewPrivateFiles);
+                    ct.setViewPool(getViewPool(workspace));
+                    ct.setPrepareOnly(true);
+                    workspace.act(ct);
+                    PhaseStatistics.getInstance().recordSince("poll.viewPreparation", start);
+                }
+                return null;
+            }
+        });
+    }
+
     private Tuple<List<Baseline>,List<Baseline>> getBaselinesForPollRebase(FilePath workspace, final TaskListener listener, final Stream stream, final List<String> excludeComponents) throws IOException, InterruptedException {
         return RemoteUtil.getRemoteRebaseCandidatesFromStream(workspace, stream, excludeComponents, _getPlevel());
     }
@@ -1004,44 +1226,72 @@ public class CCUCMScm extends SCM {
     /**
      * Get the {@link Baseline}s from a {@link Stream}s related Streams.
      *
+     * @param state The polling state, only {@link Baseline}s past its watermarks are returned. If null, all are returned.
+     * @param probe If true, at most the newest {@link Baseline} of each {@link Stream} is returned
+     * @param job The full name of the polling job. If adaptive polling is enabled, the quiet streams it polled recently are skipped. Streams whose {@link StreamCircuitBreaker} is open are always skipped.
      * @return A list of {@link Baseline}s
      */
-    private List<Baseline> getBaselinesFromStreams(FilePath workspace, TaskListener listener, PrintStream consoleOutput, Stream stream, Component component, Polling polling, Date date) {
+    private List<Baseline> getBaselinesFromStreams(FilePath workspace, TaskListener listener, PrintStream consoleOutput, Stream stream, Component component, Polling polling, Date date, SCMRevisionStateImpl state, boolean probe, String job) throws InterruptedException {
+
+        Collection<StreamScanResult> results = null;
+        Map<String, Date> since = state == null ? null : state.getDates(component);
+
+        boolean adaptive = job != null && getAdaptivePolling();
+        StreamCircuitBreaker breaker = StreamCircuitBreaker.getInstance();
 
-        List<Stream> streams = null;
-        List<Baseline> baselines = new ArrayList<>();
+        /* Streams that keep failing are left alone for a while */
+        Set<String> broken = breaker.getOpen();
+        Set<String> skip = new HashSet<>(broken);
+        if (adaptive) {
+            skip.addAll(StreamActivityTracker.getInstance().getNotDue(job, getAdaptivePollingMin() * 60000L, getAdaptivePollingMax() * 60000L));
+        }
 
+        /* The related streams are found and scanned in a single round trip */
         try {
-            streams = RemoteUtil.getRelatedStreams(workspace, listener, stream, polling, this.getSlavePolling(), this.getMultisitePolling(), this.getHLinkFeedFrom());
+            results = RemoteUtil.getRelatedStreamsBaselines(workspace, listener, stream, polling, component, _getPlevel(), this.getSlavePolling(), this.getMultisitePolling(), this.getHLinkFeedFrom(), getTopologyCacheTtl() * 60000L, date, since, probe, skip, getPollingConcurrency(), getStreamTimeout() * 1000L).values();
+        } catch (InterruptedException e1) {
+            throw e1;
         } catch (Exception e1) {
             Throwable root = ExceptionUtils.getRootCause(e1);
-            logger.log(Level.WARNING, "Could not get related streams from " + stream, root);           
+            logger.log(Level.WARNING, "Could not get related streams from " + stream, root);
             consoleOutput.println("[" + Config.nameShort + "] No streams found");
-            return baselines;
+            return new ArrayList<>();
+        }
+
+        if (state != null) {
+            List<StreamScanResult> past = new ArrayList<>();
+            for (StreamScanResult result : results) {
+                past.add(result.isFailed() || result.isSkipped() ? result : StreamScanResult.found(result.getStream(), state.pastWatermark(result.getStream(), component, result.getBaselines())));
+            }
+            results = past;
         }
 
-        consoleOutput.println("[" + Config.nameShort + "] Scanning " + streams.size() + " stream" + (streams.size() == 1 ? "" : "s") + " for baselines.");
+        consoleOutput.println("[" + Config.nameShort + "] Scanned " + results.size() + " stream" + (results.size() == 1 ? "" : "s") + " for baselines.");
 
+        /* Print the results in the order of the streams, regardless of the order they were scanned in */
         int c = 1;
-        for (Stream s : streams) {
-            try {
-                consoleOutput.printf("[" + Config.nameShort + "] [%02d] %s ", c, s.getShortname());
-                c++;
-                List<Baseline> found = RemoteUtil.getRemoteBaselinesFromStream(workspace, component, s, _getPlevel(), this.getSlavePolling(), this.getMultisitePolling(), date);
-                for (Baseline b : found) {                   
-                    baselines.add(b);
+        for (StreamScanResult result : results) {
+            consoleOutput.printf("[" + Config.nameShort + "] [%02d] %s ", c, result.getStream().getShortname());
+            c++;
+            String fqn = result.getStream().getFullyQualifiedName();
+            if (result.isFailed()) {
+                consoleOutput.println("No baselines: " + result.getError());
+                breaker.failure(fqn, result.getError());
+            } else if (result.isSkipped()) {
+                consoleOutput.println(broken.contains(fqn) ? "Skipped, it keeps failing" : "Skipped");
+            } else {
+                breaker.success(fqn);
+                int found = result.getBaselines().size();
+                consoleOutput.println(found + " baseline" + (found == 1 ? "" : "s") + " found");
+                if (adaptive) {
+                    StreamActivityTracker.getInstance().polled(job, result.getStream().getFullyQualifiedName(), result.getBaselines());
                 }
-                consoleOutput.println(found.size() + " baseline" + (found.size() == 1 ? "" : "s") + " found");
-            } catch (Exception e) {
-                Throwable root = ExceptionUtils.getRootCause(e);
-                logger.log(Level.WARNING, "Could not get baselines from " + s, root);
-                consoleOutput.println("No baselines: " + root.getMessage());
             }
         }
 
         consoleOutput.println("");
 
-        return baselines;
+        return StreamScanner.merge(results);
     }
 
     /**
@@ -1060,6 +1310,21 @@ public class CCUCMScm extends SCM {
         logger.fine("Retrieving valid baselines.");
         return RemoteUtil.getRemoteBaselinesFromStream(workspace, component, stream, plevel, this.getSlavePolling(), this.getMultisitePolling(), date);
     }
+
+    /**
+     * Get the valid {@link Baseline}s of a {@link Stream} when polling. The result is shared with the other jobs polling
+     * the same {@link Stream} through the {@link PollingCache}, so it may have been queried before this poll.
+     */
+    private PollingCache.Listing getPolledBaselinesFromStream(final FilePath workspace, final Stream stream, final Component component, final Date date, final boolean probe) throws IOException, InterruptedException {
+        final Project.PromotionLevel plevel = _getPlevel();
+        String key = PollingCache.key(stream, component, plevel, this.getMultisitePolling(), date, probe);
+        return PollingCache.getInstance().lookup(key, getPollingCacheTtl() * 1000L, new PollingCache.Loader() {
+            @Override
+            public List<Baseline> load() throws IOException, InterruptedException {
+                return RemoteUtil.getRemoteBaselinesFromStream(workspace, component, stream, plevel, getSlavePolling(), getMultisitePolling(), date, probe);
+            }
+        });
+    }
     
     private Tuple<Result,List<Baseline>> getValidBaselinesFromStreamWithSubscribe(List<Baseline> currentBaselines, List<Baseline> considerBaselines, FilePath workspace, boolean slavePolling) throws IOException, InterruptedException {
         logger.fine("Retrieving baselines for poll subscribe");
@@ -1088,20 +1353,13 @@ public class CCUCMScm extends SCM {
     
     /**
      * Returns the last {@link CCUCMBuildAction}, that has a valid
-     * {@link Baseline}
+     * {@link Baseline}. The build is found through the {@link LastBaselineIndex} of the project.
      *
      * @param project Project
      * @return An Action
      */
     public static CCUCMBuildAction getLastAction(AbstractProject<?, ?> project) {
-        for (AbstractBuild<?, ?> b = project.getLastBuild(); b != null; b = b.getPreviousBuild()) {
-            CCUCMBuildAction action = b.getAction(CCUCMBuildAction.class);
-            if (action != null && action.getBaseline() != null) {
-                return action;
-            }
-        }
-
-        return null;
+        return LastBaselineIndex.getLastAction(project);
     }
     
     private CCUCMBuildAction getBuildAction() throws UnableToInitializeEntityException {
@@ -1135,14 +1393,137 @@ public class CCUCMScm extends SCM {
 
     @Override
     public SCMRevisionState calcRevisionsFromBuild(AbstractBuild<?, ?> build, Launcher launcher, TaskListener listener) throws IOException, InterruptedException {
-        SCMRevisionState scmRS = null;
+        /* Carry the watermarks of the previous build forward. Builds that stopped before checkout have none, so look past them */
+        SCMRevisionStateImpl previous = null;
+        AbstractBuild<?, ?> previousBuild = build.getPreviousBuild();
+        for (int i = 0; previous == null && previousBuild != null && i < WATERMARK_LOOKBACK; i++) {
+            previous = previousBuild.getAction(SCMRevisionStateImpl.class);
+            previousBuild = previousBuild.getPreviousBuild();
+        }
+
+        SCMRevisionStateImpl scmRS = new SCMRevisionStateImpl(previous);
 
-        if (bl != null) {
-            scmRS = new SCMRevisionStateImpl();
+        CCUCMBuildAction action = build.getAction(CCUCMBuildAction.class);
+        if (action != null && action.getBaseline() != null && action.getBaseline().getStream() != null) {
+            scmRS.record(action.getBaseline().getStream(), action.getComponent(), action.getBaseline());
+            logger.fine(String.format("Polling watermarks after %s: %s", build.getFullDisplayName(), scmRS));
         }
+
         return scmRS;
     }
     
+    /**
+     * Decide whether a new {@link Baseline} is one polling would find. Poll rebase looks for recommended baselines, not new
+     * ones, so it never watches. Child and sibling polling only know their related streams once the topology is cached.
+     *
+     * @param baselineStream The fully qualified name of the {@link Stream} of the {@link Baseline}
+     * @param baselineComponent The fully qualified name of the {@link Component} of the {@link Baseline}, null if unknown
+     * @param level The promotion level of the {@link Baseline}, null if unknown
+     * @return True if the job watches the {@link Baseline}
+     */
+    public boolean isWatching(String baselineStream, String baselineComponent, Project.PromotionLevel level) {
+        Polling p = _getPolling();
+        if (!p.isPolling() || p.isPollingRebase()) {
+            return false;
+        }
+
+        try {
+            String own = Stream.get(stream).getFullyQualifiedName();
+            if (p.isPollingOther()) {
+                boolean related = false;
+                for (StreamTopologyCache.Topology topology : StreamTopologyCache.getInstance().getTopologies(own).values()) {
+                    related |= topology.getStreams().contains(baselineStream);
+                }
+                if (!related) {
+                    return false;
+                }
+            } else if (!own.equals(baselineStream)) {
+                return false;
+            }
+
+            if (baselineComponent != null && !StringUtils.isBlank(_getComponent()) && !Component.get(_getComponent()).getFullyQualifiedName().equals(baselineComponent)) {
+                return false;
+            }
+        } catch (UnableToInitializeEntityException e) {
+            logger.log(Level.FINE, "Unable to initialize the stream or component of " + jobName, e);
+            return false;
+        }
+
+        return level == null || _getPlevel() == null || _getPlevel() == level;
+    }
+
+    /**
+     * Only poll self builds the {@link Baseline} it finds as it is. The other modes deliver, rebase or consider other
+     * {@link Baseline}s, so they must find the {@link Baseline} themselves.
+     *
+     * @return True if a build can be given the {@link Baseline} to build as a parameter
+     */
+    public boolean acceptsBaselineParameter() {
+        return _getPolling().isPollingSelf();
+    }
+
+    /**
+     * @return The {@link ViewPool} directory of the agent of the workspace, null if views are not pooled
+     */
+    private String getViewPool(FilePath workspace) {
+        if (getViewPoolSize() < 1) {
+            return null;
+        }
+
+        Computer computer = workspace.toComputer();
+        Node node = computer == null ? null : computer.getNode();
+        FilePath root = node == null ? null : node.getRootPath();
+        return root == null ? null : root.child(ViewPool.DIR).getRemote();
+    }
+
+    /**
+     * Builds that poll self, subscribe or do not poll check out in a view of their own. The others deliver in a view on the
+     * {@link Stream}.
+     *
+     * @param project The project of this SCM
+     * @param listener The listener
+     * @param size The number of views to keep ready
+     * @return The task filling up the {@link ViewPool} of the job on an agent, null if the job has no views to pool
+     */
+    public ProvisionViews getViewPoolProvisioner(AbstractProject<?, ?> project, BuildListener listener, int size) {
+        String fqn;
+        try {
+            fqn = Stream.get(stream).getFullyQualifiedName();
+        } catch (UnableToInitializeEntityException e) {
+            logger.log(Level.FINE, "Unable to get the stream of " + project.getFullName(), e);
+            return null;
+        }
+
+        Polling p = _getPolling();
+        if (p.isPollingSelf() || !p.isPolling() || p.isPollingSubscribe()) {
+            /* The development stream starts from the last baseline built, so the first rebase is small */
+            CCUCMBuildAction last = getLastAction(project);
+            if (last == null || last.getBaseline() == null) {
+                return null;
+            }
+            return new ProvisionViews(listener, ViewPool.CHECKOUT, fqn, last.getBaseline().getFullyQualifiedName(), loadModule, buildProject == null ? "" : buildProject, size);
+        }
+        return new ProvisionViews(listener, ViewPool.DELIVER, fqn, null, loadModule, "", size);
+    }
+
+    /**
+     * @return True if the job polls for {@link Baseline}s at all
+     */
+    public boolean hasPolling() {
+        return _getPolling().isPolling();
+    }
+
+    /**
+     * @return The parts of the configuration that decide which {@link Baseline}s are found when polling
+     */
+    private String getPollingSignature() {
+        String signature = stream + "|" + _getComponent() + "|" + _getPlevel() + "|" + _getPolling() + "|" + isUseLatestAlways(mode) + "|" + getMultisitePolling();
+        if (mode instanceof PollRebaseMode) {
+            signature += "|" + ((PollRebaseMode) mode).getExcludeList();
+        }
+        return signature;
+    }
+
     private boolean isUseLatestAlways(PollingMode mode) {
         if(mode instanceof NewestFeatureToggle) {
             return ((NewestFeatureToggle)mode).isNewest();
@@ -1150,6 +1531,13 @@ public class CCUCMScm extends SCM {
         return false;
     }
     
+    /**
+     * Load an entity through the entity cache of the agent, or the master
+     */
+    private UCMEntity loadEntity(FilePath workspace, UCMEntity entity, boolean slavePolling) throws IOException, InterruptedException {
+        return RemoteUtil.loadEntity(workspace, entity, slavePolling, getEntityCacheTtl() * 1000L, getEntityCacheMutableTtl() * 1000L);
+    }
+
     private Baseline selectBaseline(List<Baseline> baselines, PollingMode mode, FilePath workspace) throws IOException, InterruptedException {        
         Baseline selected = null;       
         if (baselines.size() > 0) {
@@ -1160,7 +1548,7 @@ public class CCUCMScm extends SCM {
             } else {
                 selected = baselines.get(0);
             }
-            return (Baseline) RemoteUtil.loadEntity(workspace, selected, true);
+            return (Baseline) loadEntity(workspace, selected, true);
         } else {
             return null;
         }
@@ -1241,6 +1629,96 @@ public class CCUCMScm extends SCM {
         return desc.gethLinkFeedFrom();
     }
 
+    public int getPollingConcurrency() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getPollingConcurrency();
+    }
+
+    public int getPollingCacheTtl() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getPollingCacheTtl();
+    }
+
+    public int getTopologyCacheTtl() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getTopologyCacheTtl();
+    }
+
+    public int getHandoffFreshness() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getHandoffFreshness();
+    }
+
+    public int getClearCaseCheckTtl() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getClearCaseCheckTtl();
+    }
+
+    public int getEntityCacheTtl() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getEntityCacheTtl();
+    }
+
+    public int getEntityCacheMutableTtl() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getEntityCacheMutableTtl();
+    }
+
+    public int getPollingThreads() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getPollingThreads();
+    }
+
+    public int getPollingTimeout() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getPollingTimeout();
+    }
+
+    public int getStreamTimeout() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getStreamTimeout();
+    }
+
+    public int getPollingWarmup() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getPollingWarmup();
+    }
+
+    public int getViewPoolSize() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getViewPoolSize();
+    }
+
+    public int getChangelogThreads() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getChangelogThreads();
+    }
+
+    public boolean getPollingProbe() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getPollingProbe();
+    }
+
+    public boolean getSpeculativeCheckout() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getSpeculativeCheckout();
+    }
+
+    public boolean getAdaptivePolling() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getAdaptivePolling();
+    }
+
+    public int getAdaptivePollingMin() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getAdaptivePollingMin();
+    }
+
+    public int getAdaptivePollingMax() {
+        CCUCMScm.CCUCMScmDescriptor desc = (CCUCMScm.CCUCMScmDescriptor) this.getDescriptor();
+        return desc.getAdaptivePollingMax();
+    }
+
     public boolean getMultisitePolling() {
         if (this.multisitePolling != null) {
             return this.multisitePolling;
@@ -1333,9 +1811,86 @@ public class CCUCMScm extends SCM {
     @Extension
     public static class CCUCMScmDescriptor extends SCMDescriptor<CCUCMScm> implements hudson.model.ModelObject {
 
+        public static final int DEFAULT_POLLING_CONCURRENCY = 4;
+        public static final int DEFAULT_POLLING_THREADS = 8;
+        public static final int DEFAULT_POLLING_TIMEOUT = 600;
+        public static final int DEFAULT_STREAM_TIMEOUT = 300;
+        public static final int DEFAULT_POLLING_WARMUP = 5;
+        public static final int DEFAULT_POLLING_CACHE_TTL = 60;
+        public static final int DEFAULT_TOPOLOGY_CACHE_TTL = 60;
+        public static final int DEFAULT_HANDOFF_FRESHNESS = 300;
+        public static final int DEFAULT_CLEARCASE_CHECK_TTL = 300;
+        public static final int DEFAULT_ENTITY_CACHE_TTL = 600;
+        public static final int DEFAULT_ENTITY_CACHE_MUTABLE_TTL = 10;
+        public static final int DEFAULT_ADAPTIVE_POLLING_MIN = 1;
+        public static final int DEFAULT_ADAPTIVE_POLLING_MAX = 60;
+        public static final int DEFAULT_VIEW_POOL_SIZE = 0;
+        public static final int DEFAULT_CHANGELOG_THREADS = 4;
+
         private String hLinkFeedFrom;
         private boolean slavePolling;
         private boolean multisitePolling;
+        /**
+         * The number of related streams scanned concurrently when polling child or sibling streams
+         */
+        private int pollingConcurrency = DEFAULT_POLLING_CONCURRENCY;
+        /**
+         * The number of jobs polled at the same time, on threads of their own
+         */
+        private int pollingThreads = DEFAULT_POLLING_THREADS;
+        /**
+         * The number of seconds a poll, and the scan of a single related stream, may take before it is cancelled. 0 never cancels.
+         */
+        private int pollingTimeout = DEFAULT_POLLING_TIMEOUT;
+        private int streamTimeout = DEFAULT_STREAM_TIMEOUT;
+        /**
+         * The number of minutes the first polls after a restart are spread over, 0 polls all jobs at once
+         */
+        private int pollingWarmup = DEFAULT_POLLING_WARMUP;
+        /**
+         * The number of seconds a polled list of baselines is shared between jobs, 0 disables the cache
+         */
+        private int pollingCacheTtl = DEFAULT_POLLING_CACHE_TTL;
+        /**
+         * The number of minutes the related streams of a stream are remembered, 0 disables the cache
+         */
+        private int topologyCacheTtl = DEFAULT_TOPOLOGY_CACHE_TTL;
+        /**
+         * The number of seconds the baselines found by a poll can be used by the checkout of the build it scheduled, 0 disables it
+         */
+        private int handoffFreshness = DEFAULT_HANDOFF_FRESHNESS;
+        /**
+         * The number of seconds ClearCase is known to be available on an agent once checked, 0 checks it every time
+         */
+        private int clearCaseCheckTtl = DEFAULT_CLEARCASE_CHECK_TTL;
+        /**
+         * The number of seconds a loaded entity is cached where it was loaded, and the shorter time for baselines and streams,
+         * whose state changes. 0 disables the cache.
+         */
+        private int entityCacheTtl = DEFAULT_ENTITY_CACHE_TTL;
+        private int entityCacheMutableTtl = DEFAULT_ENTITY_CACHE_MUTABLE_TTL;
+        /**
+         * Only find out whether there are new baselines when polling, and leave the listing to the checkout
+         */
+        private boolean pollingProbe = false;
+        /**
+         * Prepare the view of a build scheduled by polling self while it waits in the queue
+         */
+        private boolean speculativeCheckout = false;
+        /**
+         * Poll quiet streams less often, between the minimum and maximum number of minutes
+         */
+        private boolean adaptivePolling = false;
+        private int adaptivePollingMin = DEFAULT_ADAPTIVE_POLLING_MIN;
+        private int adaptivePollingMax = DEFAULT_ADAPTIVE_POLLING_MAX;
+        /**
+         * The number of loaded views kept ready per stream on every agent a job can run on, 0 disables the pool
+         */
+        private int viewPoolSize = DEFAULT_VIEW_POOL_SIZE;
+        /**
+         * The number of activities whose versions are resolved at the same time for a non-trimmed change log, 1 resolves them one by one
+         */
+        private int changelogThreads = DEFAULT_CHANGELOG_THREADS;
         public CCUCMScmDescriptor() {
             super(CCUCMScm.class, null);
             load();
@@ -1364,6 +1919,25 @@ public class CCUCMScm extends SCM {
                 e.getMessage();
             }
 
+            pollingConcurrency = Math.max(1, json.optInt("pollingConcurrency", DEFAULT_POLLING_CONCURRENCY));
+            pollingThreads = Math.max(1, json.optInt("pollingThreads", DEFAULT_POLLING_THREADS));
+            pollingTimeout = Math.max(0, json.optInt("pollingTimeout", DEFAULT_POLLING_TIMEOUT));
+            streamTimeout = Math.max(0, json.optInt("streamTimeout", DEFAULT_STREAM_TIMEOUT));
+            pollingWarmup = Math.max(0, json.optInt("pollingWarmup", DEFAULT_POLLING_WARMUP));
+            pollingCacheTtl = Math.max(0, json.optInt("pollingCacheTtl", DEFAULT_POLLING_CACHE_TTL));
+            topologyCacheTtl = Math.max(0, json.optInt("topologyCacheTtl", DEFAULT_TOPOLOGY_CACHE_TTL));
+            handoffFreshness = Math.max(0, json.optInt("handoffFreshness", DEFAULT_HANDOFF_FRESHNESS));
+            clearCaseCheckTtl = Math.max(0, json.optInt("clearCaseCheckTtl", DEFAULT_CLEARCASE_CHECK_TTL));
+            entityCacheTtl = Math.max(0, json.optInt("entityCacheTtl", DEFAULT_ENTITY_CACHE_TTL));
+            entityCacheMutableTtl = Math.max(0, json.optInt("entityCacheMutableTtl", DEFAULT_ENTITY_CACHE_MUTABLE_TTL));
+            pollingProbe = json.optBoolean("pollingProbe", false);
+            speculativeCheckout = json.optBoolean("speculativeCheckout", false);
+            adaptivePolling = json.optBoolean("adaptivePolling", false);
+            adaptivePollingMin = Math.max(0, json.optInt("adaptivePollingMin", DEFAULT_ADAPTIVE_POLLING_MIN));
+            adaptivePollingMax = Math.max(adaptivePollingMin, json.optInt("adaptivePollingMax", DEFAULT_ADAPTIVE_POLLING_MAX));
+            viewPoolSize = Math.max(0, json.optInt("viewPoolSize", DEFAULT_VIEW_POOL_SIZE));
+            changelogThreads = Math.max(1, json.optInt("changelogThreads", DEFAULT_CHANGELOG_THREADS));
+
             save();
 
             return true;
@@ -1377,6 +1951,226 @@ public class CCUCMScm extends SCM {
             return multisitePolling;
         }
 
+        public int getPollingConcurrency() {
+            return Math.max(1, pollingConcurrency);
+        }
+
+        public void setPollingConcurrency(int pollingConcurrency) {
+            this.pollingConcurrency = pollingConcurrency;
+        }
+
+        public FormValidation doCheckPollingConcurrency(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        public int getPollingThreads() {
+            return Math.max(1, pollingThreads);
+        }
+
+        public void setPollingThreads(int pollingThreads) {
+            this.pollingThreads = pollingThreads;
+        }
+
+        public FormValidation doCheckPollingThreads(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        public int getPollingTimeout() {
+            return Math.max(0, pollingTimeout);
+        }
+
+        public void setPollingTimeout(int pollingTimeout) {
+            this.pollingTimeout = pollingTimeout;
+        }
+
+        public FormValidation doCheckPollingTimeout(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public int getStreamTimeout() {
+            return Math.max(0, streamTimeout);
+        }
+
+        public void setStreamTimeout(int streamTimeout) {
+            this.streamTimeout = streamTimeout;
+        }
+
+        public FormValidation doCheckStreamTimeout(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public int getPollingWarmup() {
+            return Math.max(0, pollingWarmup);
+        }
+
+        public void setPollingWarmup(int pollingWarmup) {
+            this.pollingWarmup = pollingWarmup;
+        }
+
+        public FormValidation doCheckPollingWarmup(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public PollingExecutor getPollingExecutor() {
+            return PollingExecutor.getInstance();
+        }
+
+        public int getPollingCacheTtl() {
+            return Math.max(0, pollingCacheTtl);
+        }
+
+        public void setPollingCacheTtl(int pollingCacheTtl) {
+            this.pollingCacheTtl = pollingCacheTtl;
+        }
+
+        public FormValidation doCheckPollingCacheTtl(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public PollingCache getPollingCache() {
+            return PollingCache.getInstance();
+        }
+
+        public int getTopologyCacheTtl() {
+            return Math.max(0, topologyCacheTtl);
+        }
+
+        public void setTopologyCacheTtl(int topologyCacheTtl) {
+            this.topologyCacheTtl = topologyCacheTtl;
+        }
+
+        public FormValidation doCheckTopologyCacheTtl(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public int getHandoffFreshness() {
+            return Math.max(0, handoffFreshness);
+        }
+
+        public void setHandoffFreshness(int handoffFreshness) {
+            this.handoffFreshness = handoffFreshness;
+        }
+
+        public FormValidation doCheckHandoffFreshness(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public int getClearCaseCheckTtl() {
+            return Math.max(0, clearCaseCheckTtl);
+        }
+
+        public void setClearCaseCheckTtl(int clearCaseCheckTtl) {
+            this.clearCaseCheckTtl = clearCaseCheckTtl;
+        }
+
+        public FormValidation doCheckClearCaseCheckTtl(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public int getEntityCacheTtl() {
+            return Math.max(0, entityCacheTtl);
+        }
+
+        public void setEntityCacheTtl(int entityCacheTtl) {
+            this.entityCacheTtl = entityCacheTtl;
+        }
+
+        public FormValidation doCheckEntityCacheTtl(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public int getEntityCacheMutableTtl() {
+            return Math.max(0, entityCacheMutableTtl);
+        }
+
+        public void setEntityCacheMutableTtl(int entityCacheMutableTtl) {
+            this.entityCacheMutableTtl = entityCacheMutableTtl;
+        }
+
+        public FormValidation doCheckEntityCacheMutableTtl(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public boolean getPollingProbe() {
+            return pollingProbe;
+        }
+
+        public void setPollingProbe(boolean pollingProbe) {
+            this.pollingProbe = pollingProbe;
+        }
+
+        public boolean getSpeculativeCheckout() {
+            return speculativeCheckout;
+        }
+
+        public void setSpeculativeCheckout(boolean speculativeCheckout) {
+            this.speculativeCheckout = speculativeCheckout;
+        }
+
+        public ViewPreparation getViewPreparation() {
+            return ViewPreparation.getInstance();
+        }
+
+        public boolean getAdaptivePolling() {
+            return adaptivePolling;
+        }
+
+        public void setAdaptivePolling(boolean adaptivePolling) {
+            this.adaptivePolling = adaptivePolling;
+        }
+
+        public int getAdaptivePollingMin() {
+            return Math.max(0, adaptivePollingMin);
+        }
+
+        public void setAdaptivePollingMin(int adaptivePollingMin) {
+            this.adaptivePollingMin = adaptivePollingMin;
+        }
+
+        public int getAdaptivePollingMax() {
+            return Math.max(getAdaptivePollingMin(), adaptivePollingMax);
+        }
+
+        public void setAdaptivePollingMax(int adaptivePollingMax) {
+            this.adaptivePollingMax = adaptivePollingMax;
+        }
+
+        public FormValidation doCheckAdaptivePollingMin(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public FormValidation doCheckAdaptivePollingMax(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        public int getViewPoolSize() {
+            return Math.max(0, viewPoolSize);
+        }
+
+        public void setViewPoolSize(int viewPoolSize) {
+            this.viewPoolSize = viewPoolSize;
+        }
+
+        public FormValidation doCheckViewPoolSize(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public String getViewPool() {
+            return ViewPoolWork.getSummary();
+        }
+
+        public int getChangelogThreads() {
+            return Math.max(1, changelogThreads);
+        }
+
+        public void setChangelogThreads(int changelogThreads) {
+            this.changelogThreads = changelogThreads;
+        }
+
+        public FormValidation doCheckChangelogThreads(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+
         /**
          * This is called by Hudson to discover the plugin name
          * @return The name to be displayed when the user selects the SCM
@@ -1,7 +1,9 @@
 package net.praqma.hudson.scm;
 
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -31,6 +33,10 @@ public class ChangeLogEntryImpl extends Entry {
 	protected static final Logger logger = Logger.getLogger( ChangeLogEntryImpl.class.getName()  );
 	private volatile List<String> affectedPaths = new ArrayList<>();
 
+	/* The position of the activity in the change log. If set, the files are read from the change log when needed, and may be let go again. */
+	private int index = -1;
+	private transient volatile SoftReference<List<String>> lazyPaths;
+
 	public ChangeLogEntryImpl() { }
 
 	/**
@@ -39,7 +45,34 @@ public class ChangeLogEntryImpl extends Entry {
 	 */
 	@Override
 	public Collection<String> getAffectedPaths() {
-		return affectedPaths;
+		if( index < 0 || parent == null ) {
+			return affectedPaths;
+		}
+
+		List<String> paths = getReadAffectedPaths();
+		if( paths == null ) {
+			paths = parent.readAffectedPaths( index );
+		}
+		return paths;
+	}
+
+	void setIndex( int index ) {
+		this.index = index;
+	}
+
+	/**
+	 * Set the files read from the change log, see {@link ChangeLogParserImpl#readAffectedPaths(java.io.File, java.nio.charset.Charset, List, int)}
+	 */
+	void setAffectedPaths( List<String> paths ) {
+		this.lazyPaths = new SoftReference<List<String>>( Collections.unmodifiableList( paths ) );
+	}
+
+	/**
+	 * @return The files read from the change log, null if they are not read or were let go
+	 */
+	List<String> getReadAffectedPaths() {
+		SoftReference<List<String>> ref = lazyPaths;
+		return ref == null ? null : ref.get();
 	}
     
     public String getOnlyChangedFile(String fulltext) {
@@ -1,57 +1,184 @@
 package net.praqma.hudson.scm;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import edu.umd.cs.findbugs.annotations.*;
-import org.apache.commons.digester.Digester;
-import org.xml.sax.SAXException;
 
 import hudson.model.AbstractBuild;
 import hudson.scm.ChangeLogParser;
 import hudson.scm.ChangeLogSet;
 import hudson.scm.ChangeLogSet.Entry;
-import hudson.util.Digester2;
 import java.util.logging.Level;
 
 /**
- * 
+ * Reads the change log with StAX. Only the activities are read up front, the files of an activity are read from the
+ * change log when they are needed, see {@link #readAffectedPaths(File, Charset, List, int)}. Change logs are written as UTF-8,
+ * change logs written before that have the encoding of the platform.
+ *
  * @author Troels Selch
  * @author Margit Bennetzen
- * 
+ *
  */
 @SuppressFBWarnings("")
 public class ChangeLogParserImpl extends ChangeLogParser {
 
 	protected static final Logger logger = Logger.getLogger( ChangeLogParserImpl.class.getName() );
 
+	/**
+	 * The files of the following activities are read along with the files of an activity, up to this many files
+	 */
+	public static final int PATH_BATCH = 10000;
+
+	private static final String ACTIVITY = "activity";
+
 	@Override
-	public ChangeLogSet<? extends Entry> parse( AbstractBuild build, File changelogFile ) throws IOException, SAXException {
-		List<ChangeLogEntryImpl> entries = new ArrayList<ChangeLogEntryImpl>();
-		Digester digester = new Digester2();
-		digester.push( entries );
-		digester.addObjectCreate( "*/entry/activity", ChangeLogEntryImpl.class );
-		digester.addSetProperties( "*/entry/activity" );
-		digester.addBeanPropertySetter( "*/entry/activity/file", "nextFilepath" );
-		digester.addBeanPropertySetter( "*/entry/activity/actName" );
-		digester.addBeanPropertySetter( "*/entry/activity/actHeadline" );
-		digester.addBeanPropertySetter( "*/entry/activity/author", "myAuthor" );
-		digester.addSetNext( "*/entry/activity", "add" );
-		FileReader reader = new FileReader( changelogFile );
-        
+	public ChangeLogSet<? extends Entry> parse( AbstractBuild build, File changelogFile ) throws IOException {
+		Charset charset = StandardCharsets.UTF_8;
+		List<ChangeLogEntryImpl> entries;
 		try {
-			digester.parse( reader );
-		} catch( Exception e ) {
+			entries = readEntries( changelogFile, charset );
+		} catch( CharacterCodingException e ) {
+			logger.fine( "The change log " + changelogFile + " is not UTF-8, reading it with the encoding of the platform" );
+			charset = Charset.defaultCharset();
+			entries = readEntries( changelogFile, charset );
+		}
+
+		return new ChangeLogSetImpl( build, entries, changelogFile, charset );
+	}
+
+	/**
+	 * @throws CharacterCodingException Thrown when a UTF-8 change log has bytes that are not UTF-8
+	 */
+	private static List<ChangeLogEntryImpl> readEntries( File changelogFile, Charset charset ) throws IOException {
+		List<ChangeLogEntryImpl> entries = new ArrayList<ChangeLogEntryImpl>();
+
+		try( InputStream in = new FileInputStream( changelogFile ) ) {
+			XMLStreamReader reader = createReader( in, charset );
+			try {
+				ChangeLogEntryImpl entry = null;
+				while( reader.hasNext() ) {
+					int event = reader.next();
+					if( event == XMLStreamConstants.START_ELEMENT ) {
+						String name = reader.getLocalName();
+						if( ACTIVITY.equals( name ) ) {
+							entry = new ChangeLogEntryImpl();
+							entry.setIndex( entries.size() );
+						} else if( entry != null && "actName".equals( name ) ) {
+							entry.setActName( reader.getElementText() );
+						} else if( entry != null && "actHeadline".equals( name ) ) {
+							entry.setActHeadline( reader.getElementText() );
+						} else if( entry != null && "author".equals( name ) ) {
+							entry.setMyAuthor( reader.getElementText() );
+						}
+					} else if( event == XMLStreamConstants.END_ELEMENT && entry != null && ACTIVITY.equals( reader.getLocalName() ) ) {
+						entries.add( entry );
+						entry = null;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch( XMLStreamException e ) {
+			CharacterCodingException coding = getCodingFailure( e );
+			if( coding != null ) {
+				throw coding;
+			}
 			logger.log(Level.SEVERE, "Unable to parse change log", e);
-		} finally {
-			reader.close();
 		}
-			
-		return new ChangeLogSetImpl( build, entries );
+
+		return entries;
+	}
+
+	/**
+	 * Read the files of an activity, and of the activities after it until {@link #PATH_BATCH} files are read, so the change
+	 * log is not read again for every activity when they are shown in order.
+	 *
+	 * @param changelogFile The change log
+	 * @param charset The encoding of the change log, see {@link #parse(AbstractBuild, File)}
+	 * @param entries The entries of the change log
+	 * @param index The index of the activity
+	 * @return The files of the activity
+	 */
+	static List<String> readAffectedPaths( File changelogFile, Charset charset, List<ChangeLogEntryImpl> entries, int index ) throws IOException {
+		List<String> paths = new ArrayList<String>();
+
+		try( InputStream in = new FileInputStream( changelogFile ) ) {
+			XMLStreamReader reader = createReader( in, charset );
+			try {
+				int current = -1;
+				int read = 0;
+				List<String> files = null;
+				while( reader.hasNext() ) {
+					int event = reader.next();
+					if( event == XMLStreamConstants.START_ELEMENT ) {
+						String name = reader.getLocalName();
+						if( ACTIVITY.equals( name ) ) {
+							current++;
+							files = current < index ? null : ( current == index ? paths : new ArrayList<String>() );
+						} else if( files != null && "file".equals( name ) ) {
+							files.add( reader.getElementText() );
+						}
+					} else if( event == XMLStreamConstants.END_ELEMENT && files != null && ACTIVITY.equals( reader.getLocalName() ) ) {
+						if( current < entries.size() ) {
+							entries.get( current ).setAffectedPaths( files );
+						}
+						read += files.size();
+						files = null;
+						if( read >= PATH_BATCH ) {
+							break;
+						}
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch( XMLStreamException e ) {
+			throw new IOException( "Unable to read the files of activity " + index + " in " + changelogFile, e );
+		}
+
+		return paths;
+	}
+
+	/**
+	 * @param charset The encoding to read the change log with, whatever it declares. Bytes that are not UTF-8 fail a UTF-8 change
+	 * log, in any other encoding they are replaced.
+	 */
+	private static XMLStreamReader createReader( InputStream in, Charset charset ) throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+		factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+		if( StandardCharsets.UTF_8.equals( charset ) ) {
+			return factory.createXMLStreamReader( new InputStreamReader( in, charset.newDecoder() ) );
+		}
+		return factory.createXMLStreamReader( new InputStreamReader( in, charset ) );
+	}
+
+	/**
+	 * @return The failure to decode the change log behind the exception, null if it is not one
+	 */
+	private static CharacterCodingException getCodingFailure( Throwable e ) {
+		if( e == null || e instanceof CharacterCodingException ) {
+			return (CharacterCodingException) e;
+		}
+		if( e instanceof XMLStreamException && ( (XMLStreamException) e ).getNestedException() != null ) {
+			return getCodingFailure( ( (XMLStreamException) e ).getNestedException() );
+		}
+		return getCodingFailure( e.getCause() );
 	}
 
 }
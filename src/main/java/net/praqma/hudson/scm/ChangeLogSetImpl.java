@@ -1,8 +1,12 @@
 package net.praqma.hudson.scm;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import hudson.model.AbstractBuild;
@@ -22,6 +26,9 @@ public class ChangeLogSetImpl extends ChangeLogSet<ChangeLogEntryImpl> {
 	protected static final Logger logger = Logger.getLogger( ChangeLogSetImpl.class.getName()  );
 	private List<ChangeLogEntryImpl> entries = null;
 	private String baselineName;
+	/* The change log the files of the entries are read from */
+	private File changelogFile;
+	private Charset charset;
 
 	protected ChangeLogSetImpl( AbstractBuild<?, ?> build, List<ChangeLogEntryImpl> entries ) {
 		super( build );
@@ -32,6 +39,37 @@ public class ChangeLogSetImpl extends ChangeLogSet<ChangeLogEntryImpl> {
 		}
 	}
 
+	protected ChangeLogSetImpl( AbstractBuild<?, ?> build, List<ChangeLogEntryImpl> entries, File changelogFile, Charset charset ) {
+		this( build, entries );
+		this.changelogFile = changelogFile;
+		this.charset = charset;
+	}
+
+	/**
+	 * Read the files of an entry from the change log
+	 *
+	 * @param index The index of the entry
+	 * @return The files, empty if they could not be read
+	 */
+	synchronized List<String> readAffectedPaths( int index ) {
+		if( changelogFile == null ) {
+			return Collections.emptyList();
+		}
+
+		/* Read by another thread while this one waited */
+		List<String> paths = entries.get( index ).getReadAffectedPaths();
+		if( paths != null ) {
+			return paths;
+		}
+
+		try {
+			return Collections.unmodifiableList( ChangeLogParserImpl.readAffectedPaths( changelogFile, charset, entries, index ) );
+		} catch( IOException e ) {
+			logger.log( Level.WARNING, "Unable to read the files of the change log", e );
+			return Collections.emptyList();
+		}
+	}
+
     @Override
 	public Iterator<ChangeLogEntryImpl> iterator() {
 		return entries.iterator();
@@ -0,0 +1,167 @@
+package net.praqma.hudson.scm;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.hudson.CCUCMBuildAction;
+
+/**
+ * Remembers the number of the last build of a job that has a {@link Baseline}. The number is stored next to the job, so
+ * finding the last {@link Baseline} does not load the builds in between, not even after a restart.
+ */
+public class LastBaselineIndex {
+
+    private static final Logger logger = Logger.getLogger(LastBaselineIndex.class.getName());
+
+    private static final String FILENAME = "ccucm-baseline-index.xml";
+
+    /**
+     * No build of the job has a {@link Baseline}
+     */
+    private static final int NONE = 0;
+
+    private static final Map<AbstractProject<?, ?>, Integer> indexes = new WeakHashMap<>();
+
+    /**
+     * The number of the last build with a {@link Baseline}
+     */
+    private int number;
+
+    private LastBaselineIndex(int number) {
+        this.number = number;
+    }
+
+    /**
+     * @param project The job
+     * @return The {@link CCUCMBuildAction} of the last build that has a {@link Baseline}, or null if there is none
+     */
+    public static CCUCMBuildAction getLastAction(AbstractProject<?, ?> project) {
+        Integer number = read(project);
+        if (number != null) {
+            if (number == NONE) {
+                return null;
+            }
+
+            AbstractBuild<?, ?> build = project.getBuildByNumber(number);
+            CCUCMBuildAction action = build == null ? null : build.getAction(CCUCMBuildAction.class);
+            if (action != null && action.getBaseline() != null) {
+                return action;
+            }
+            logger.fine(String.format("The baseline index of %s points to #%s, which has no baseline", project.getFullName(), number));
+        }
+
+        /* No usable index, find the build the hard way and index it */
+        for (AbstractBuild<?, ?> b = project.getLastBuild(); b != null; b = b.getPreviousBuild()) {
+            CCUCMBuildAction action = b.getAction(CCUCMBuildAction.class);
+            if (action != null && action.getBaseline() != null) {
+                write(project, b.getNumber());
+                return action;
+            }
+        }
+
+        write(project, NONE);
+        return null;
+    }
+
+    /**
+     * Index the build if it has a {@link Baseline} and is newer than the indexed build.
+     * @param build The build
+     */
+    public static void update(AbstractBuild<?, ?> build) {
+        CCUCMBuildAction action = build.getAction(CCUCMBuildAction.class);
+        if (action == null || action.getBaseline() == null) {
+            return;
+        }
+
+        AbstractProject<?, ?> project = build.getProject();
+        synchronized (indexes) {
+            Integer number = read(project);
+            if (number == null || number < build.getNumber()) {
+                write(project, build.getNumber());
+            }
+        }
+    }
+
+    /**
+     * Forget the index of a job if it points to the given build.
+     * @param build The build, typically being deleted
+     */
+    public static void invalidate(AbstractBuild<?, ?> build) {
+        AbstractProject<?, ?> project = build.getProject();
+        synchronized (indexes) {
+            Integer number = read(project);
+            if (number != null && number == build.getNumber()) {
+                indexes.remove(project);
+                File file = getFile(project).getFile();
+                if (file.exists() && !file.delete()) {
+                    logger.warning("Unable to delete " + file);
+                }
+            }
+        }
+    }
+
+    private static XmlFile getFile(AbstractProject<?, ?> project) {
+        return new XmlFile(new File(project.getRootDir(), FILENAME));
+    }
+
+    private static Integer read(AbstractProject<?, ?> project) {
+        synchronized (indexes) {
+            Integer number = indexes.get(project);
+            if (number != null) {
+                return number;
+            }
+
+            XmlFile file = getFile(project);
+            if (file.exists()) {
+                try {
+                    number = ((LastBaselineIndex) file.read()).number;
+                    indexes.put(project, number);
+                } catch (IOException | ClassCastException e) {
+                    logger.log(Level.WARNING, "Unable to read the baseline index of " + project.getFullName(), e);
+                }
+            }
+            return number;
+        }
+    }
+
+    private static void write(AbstractProject<?, ?> project, int number) {
+        synchronized (indexes) {
+            indexes.put(project, number);
+            try {
+                getFile(project).write(new LastBaselineIndex(number));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to write the baseline index of " + project.getFullName(), e);
+            }
+        }
+    }
+
+    @Extension
+    public static class Listener extends RunListener<AbstractBuild> {
+
+        @Override
+        public void onCompleted(AbstractBuild build, TaskListener listener) {
+            if (build.getProject().getScm() instanceof CCUCMScm) {
+                update(build);
+            }
+        }
+
+        @Override
+        public void onDeleted(AbstractBuild build) {
+            if (build.getProject().getScm() instanceof CCUCMScm) {
+                invalidate(build);
+            }
+        }
+    }
+}
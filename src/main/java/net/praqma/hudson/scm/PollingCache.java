@@ -0,0 +1,215 @@
+package net.praqma.hudson.scm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Component;
+import net.praqma.clearcase.ucm.entities.Project;
+import net.praqma.clearcase.ucm.entities.Stream;
+
+/**
+ * Caches the {@link Baseline}s found when polling a {@link Stream}, shared by all jobs on the master. Jobs polling the same
+ * {@link Stream}, {@link Component} and promotion level within the time to live reuse the same result, and jobs polling at the
+ * same time wait for the one query in flight instead of starting their own.
+ */
+public class PollingCache {
+
+    private static final Logger logger = Logger.getLogger(PollingCache.class.getName());
+
+    private static final PollingCache instance = new PollingCache();
+
+    /**
+     * Lists the {@link Baseline}s, when they are not in the cache.
+     */
+    public interface Loader {
+        List<Baseline> load() throws IOException, InterruptedException;
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+
+    public static PollingCache getInstance() {
+        return instance;
+    }
+
+    public static String key(Stream stream, Component component, Project.PromotionLevel plevel, boolean multisitePolling, Date date, boolean probe) {
+        return stream.getFullyQualifiedName() + "|" + (component == null ? "*" : component.getFullyQualifiedName()) + "|" + plevel + "|" + multisitePolling + "|" + (date == null ? "-" : date.getTime()) + "|" + probe;
+    }
+
+    /**
+     * Get the {@link Baseline}s for the key, running the loader if they are not cached.
+     *
+     * @param key The key, see {@link #key(Stream, Component, Project.PromotionLevel, boolean, Date, boolean)}
+     * @param ttl The time to live in milliseconds. If less than 1, the cache is not used.
+     * @param loader The query to run when the {@link Baseline}s are not cached
+     * @return A copy of the cached list
+     * @throws IOException Thrown when the query fails. Failures are never cached.
+     * @throws InterruptedException Thrown when interrupted while waiting for the query
+     */
+    public List<Baseline> get(String key, long ttl, Loader loader) throws IOException, InterruptedException {
+        return lookup(key, ttl, loader).getBaselines();
+    }
+
+    /**
+     * Get the {@link Baseline}s for the key and when they were queried, running the loader if they are not cached.
+     *
+     * @param key The key, see {@link #key(Stream, Component, Project.PromotionLevel, boolean, Date, boolean)}
+     * @param ttl The time to live in milliseconds. If less than 1, the cache is not used.
+     * @param loader The query to run when the {@link Baseline}s are not cached
+     * @return The {@link Listing}
+     * @throws IOException Thrown when the query fails. Failures are never cached.
+     * @throws InterruptedException Thrown when interrupted while running or waiting for the query. When the lookup running
+     * the query is interrupted, a lookup waiting for it runs the query again.
+     */
+    public Listing lookup(String key, long ttl, final Loader loader) throws IOException, InterruptedException {
+        if (ttl < 1) {
+            long queried = System.currentTimeMillis();
+            return new Listing(loader.load(), queried);
+        }
+
+        Entry entry;
+        boolean owner = false;
+        while (true) {
+            entry = entries.get(key);
+            if (entry != null && !entry.isExpired(ttl)) {
+                break;
+            }
+
+            Entry fresh = new Entry(new FutureTask<>(new Callable<List<Baseline>>() {
+                @Override
+                public List<Baseline> call() throws Exception {
+                    return loader.load();
+                }
+            }));
+
+            if (entry == null ? entries.putIfAbsent(key, fresh) == null : entries.replace(key, entry, fresh)) {
+                entry = fresh;
+                owner = true;
+                break;
+            }
+        }
+
+        if (owner) {
+            misses.incrementAndGet();
+            evictExpired(ttl);
+            entry.task.run();
+        } else if (entry.task.isDone()) {
+            hits.incrementAndGet();
+        } else {
+            joined.incrementAndGet();
+            logger.fine("Waiting for polling query in flight: " + key);
+        }
+
+        try {
+            return new Listing(entry.task.get(), entry.created);
+        } catch (ExecutionException e) {
+            entries.remove(key, entry);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                if (!owner && !Thread.currentThread().isInterrupted()) {
+                    /* The owner was interrupted, not this lookup, so one of the lookups that joined takes over */
+                    logger.fine("Polling query in flight was interrupted, querying again: " + key);
+                    return lookup(key, ttl, loader);
+                }
+                throw (InterruptedException) cause;
+            }
+            throw new IOException("Unable to get baselines for " + key, cause);
+        }
+    }
+
+    private void evictExpired(long ttl) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next().getValue();
+            if (e.task.isDone() && e.isExpired(ttl)) {
+                it.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of lookups that waited for a query already in flight
+     */
+    public long getJoined() {
+        return joined.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s entries, %s hits, %s joined, %s misses", getSize(), getHits(), getJoined(), getMisses());
+    }
+
+    /**
+     * The {@link Baseline}s found by a query, and the time the query started
+     */
+    public static class Listing {
+        private final List<Baseline> baselines;
+        private final long queried;
+
+        Listing(List<Baseline> baselines, long queried) {
+            this.baselines = baselines;
+            this.queried = queried;
+        }
+
+        /**
+         * @return A copy of the {@link Baseline}s
+         */
+        public List<Baseline> getBaselines() {
+            return new ArrayList<>(baselines);
+        }
+
+        /**
+         * @return The time the query started, in milliseconds since the epoch
+         */
+        public long getQueried() {
+            return queried;
+        }
+    }
+
+    private static class Entry {
+        private final FutureTask<List<Baseline>> task;
+        private final long created = System.currentTimeMillis();
+
+        Entry(FutureTask<List<Baseline>> task) {
+            this.task = task;
+        }
+
+        boolean isExpired(long ttl) {
+            return System.currentTimeMillis() - created > ttl;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package net.praqma.hudson.scm;
+
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+/**
+ * Runs the polls of all jobs using the {@link CCUCMScm} on a bounded number of threads of their own, so a hanging cleartool
+ * call cannot hold the polling threads of Jenkins, which are shared by all SCMs. A poll taking longer than the timeout is
+ * cancelled, and a poll that cannot even be queued is skipped. A cancelled poll may keep its thread until cleartool returns,
+ * the next poll of the job is skipped until then.
+ */
+public class PollingExecutor {
+
+    private static final Logger logger = Logger.getLogger(PollingExecutor.class.getName());
+
+    /**
+     * The number of polls waiting for a thread, before more polls are skipped
+     */
+    public static final int QUEUE_SIZE = 100;
+
+    private static final PollingExecutor instance = new PollingExecutor();
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int ABANDONED = 2;
+
+    /* Job -> its poll, queued or running */
+    private final ConcurrentMap<String, Object> polls = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(QUEUE_SIZE), new NamingThreadFactory(new DaemonThreadFactory(), "CCUCM polling"));
+
+    private PollingExecutor() {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static PollingExecutor getInstance() {
+        return instance;
+    }
+
+    /**
+     * Run a poll, waiting at most the timeout for it to finish. The poll runs as the caller.
+     *
+     * @param job The full name of the job polling
+     * @param poll The poll
+     * @param threads The number of threads polling
+     * @param timeout The timeout in milliseconds, including the time waiting for a thread. If less than 1, there is no timeout.
+     * @return The result of the poll
+     * @throws RejectedExecutionException Thrown when too many polls are waiting already, or the previous poll of the job is
+     * still running
+     * @throws TimeoutException Thrown when the poll timed out. It is cancelled.
+     * @throws IOException Thrown when the poll fails
+     * @throws InterruptedException Thrown when interrupted, the poll is cancelled
+     */
+    public <T> T run(final String job, final Callable<T> poll, int threads, long timeout) throws TimeoutException, IOException, InterruptedException {
+        final Object token = new Object();
+        if (polls.putIfAbsent(job, token) != null) {
+            throw new RejectedExecutionException("The previous poll is still running");
+        }
+
+        resize(threads);
+
+        final AtomicInteger state = new AtomicInteger(QUEUED);
+        final Authentication auth = Jenkins.getAuthentication();
+        Future<T> future;
+        try {
+            future = executor.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    /* Given up on while queued */
+                    if (!state.compareAndSet(QUEUED, RUNNING)) {
+                        return null;
+                    }
+
+                    SecurityContext old = ACL.impersonate(auth);
+                    try {
+                        return poll.call();
+                    } finally {
+                        SecurityContextHolder.setContext(old);
+                        polls.remove(job, token);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            polls.remove(job, token);
+            throw new RejectedExecutionException("Too many polls waiting (" + this + ")", e);
+        }
+
+        try {
+            if (timeout > 0) {
+                return future.get(timeout, TimeUnit.MILLISECONDS);
+            }
+            return future.get();
+        } catch (TimeoutException e) {
+            abandon(job, token, future, state);
+            throw e;
+        } catch (InterruptedException e) {
+            abandon(job, token, future, state);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Polling failed", cause);
+        }
+    }
+
+    /**
+     * Cancel a poll. A running poll is done when its thread returns, a queued poll is done at once.
+     */
+    private void abandon(String job, Object token, Future<?> future, AtomicInteger state) {
+        future.cancel(true);
+        if (state.compareAndSet(QUEUED, ABANDONED)) {
+            polls.remove(job, token);
+        }
+    }
+
+    /**
+     * @param job The full name of a job
+     * @return True if a poll of the job is queued or running, possibly one that timed out
+     */
+    public boolean isPolling(String job) {
+        return polls.containsKey(job);
+    }
+
+    private synchronized void resize(int threads) {
+        threads = Math.max(1, threads);
+        if (threads == executor.getMaximumPoolSize()) {
+            return;
+        }
+
+        logger.fine("Polling with " + threads + " threads");
+        /* The core size can never exceed the maximum size */
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s polling, %s waiting, %s threads", getActive(), getQueued(), executor.getMaximumPoolSize());
+    }
+}
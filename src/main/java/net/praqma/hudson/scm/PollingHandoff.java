@@ -0,0 +1,153 @@
+package net.praqma.hudson.scm;
+
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.triggers.SCMTrigger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.util.structure.Tuple;
+
+/**
+ * The {@link Baseline}s found by a poll that scheduled a build. The checkout of that build uses them instead of repeating the
+ * queries, as long as they are fresh and were found for the same build with the same configuration.
+ */
+public class PollingHandoff {
+
+    private static final Logger logger = Logger.getLogger(PollingHandoff.class.getName());
+
+    private static final ConcurrentMap<String, PollingHandoff> handoffs = new ConcurrentHashMap<>();
+
+    private final String signature;
+    private final int buildNumber;
+    private final long polled;
+
+    private List<Baseline> baselines;
+
+    /* Poll subscribe */
+    private Baseline candidate;
+    private List<Baseline> considered;
+    private Result result;
+
+    /* Poll rebase */
+    private List<Baseline> foundation;
+
+    /**
+     * @param signature The configuration of the job when polling
+     * @param buildNumber The number of the build the poll scheduled
+     * @param baselines The {@link Baseline}s found
+     */
+    public PollingHandoff(String signature, int buildNumber, List<Baseline> baselines) {
+        this(signature, buildNumber, baselines, System.currentTimeMillis());
+    }
+
+    /**
+     * @param signature The configuration of the job when polling
+     * @param buildNumber The number of the build the poll scheduled
+     * @param baselines The {@link Baseline}s found
+     * @param polled The time the {@link Baseline}s were queried, which is earlier than the poll if they were cached
+     */
+    public PollingHandoff(String signature, int buildNumber, List<Baseline> baselines, long polled) {
+        this.signature = signature;
+        this.buildNumber = buildNumber;
+        this.baselines = new ArrayList<>(baselines);
+        this.polled = polled;
+    }
+
+    public PollingHandoff setSubscribe(Baseline candidate, List<Baseline> considered, Result result) {
+        this.candidate = candidate;
+        this.considered = new ArrayList<>(considered);
+        this.result = result;
+        return this;
+    }
+
+    public PollingHandoff setRebase(List<Baseline> foundation) {
+        this.foundation = new ArrayList<>(foundation);
+        return this;
+    }
+
+    /**
+     * Hand off the result of a poll, replacing any earlier hand off for the job.
+     * @param job The full name of the job
+     * @param handoff The result of the poll
+     */
+    public static void offer(String job, PollingHandoff handoff) {
+        handoffs.put(job, handoff);
+    }
+
+    /**
+     * Forget the hand off of a job, because the last poll found nothing.
+     * @param job The full name of the job
+     */
+    public static void clear(String job) {
+        handoffs.remove(job);
+    }
+
+    /**
+     * Take the hand off of a job. It is removed, so it is only used once.
+     *
+     * @param job The full name of the job
+     * @param signature The configuration of the job now
+     * @param build The build checking out. Only a build started by polling can use the hand off.
+     * @param maxAge The maximum age in milliseconds. If less than 1, no hand off is used.
+     * @return The hand off, or null if there is none or it cannot be used
+     */
+    public static PollingHandoff take(String job, String signature, Run<?, ?> build, long maxAge) {
+        PollingHandoff handoff = handoffs.remove(job);
+        if (handoff == null || maxAge < 1) {
+            return null;
+        }
+
+        if (build.getCause(SCMTrigger.SCMTriggerCause.class) == null) {
+            logger.fine(String.format("%s was not started by polling", build));
+            return null;
+        }
+
+        if (handoff.buildNumber != build.getNumber() || !handoff.signature.equals(signature)) {
+            logger.fine(String.format("The polled baselines of %s were for build #%s, not #%s, or the configuration changed", job, handoff.buildNumber, build.getNumber()));
+            return null;
+        }
+
+        if (handoff.getAge() > maxAge) {
+            logger.fine(String.format("The polled baselines of %s are %s ms old", job, handoff.getAge()));
+            return null;
+        }
+
+        return handoff;
+    }
+
+    public long getAge() {
+        return System.currentTimeMillis() - polled;
+    }
+
+    public List<Baseline> getBaselines() {
+        return new ArrayList<>(baselines);
+    }
+
+    public Baseline getCandidate() {
+        return candidate;
+    }
+
+    public List<Baseline> getConsidered() {
+        return new ArrayList<>(considered);
+    }
+
+    public Tuple<Result, List<Baseline>> getSubscribeResult() {
+        Tuple<Result, List<Baseline>> t = new Tuple<>();
+        t.t1 = result;
+        t.t2 = getBaselines();
+        return t;
+    }
+
+    public Tuple<List<Baseline>, List<Baseline>> getRebaseResult() {
+        Tuple<List<Baseline>, List<Baseline>> t = new Tuple<>();
+        t.t1 = getBaselines();
+        t.t2 = new ArrayList<>(foundation);
+        return t;
+    }
+}
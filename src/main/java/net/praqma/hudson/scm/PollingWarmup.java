@@ -0,0 +1,146 @@
+package net.praqma.hudson.scm;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.security.ACL;
+import hudson.triggers.SCMTrigger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+/**
+ * Spreads the first polls of the jobs using the {@link CCUCMScm} over a window after Jenkins starts, so they do not all hit
+ * the VOB server at once. Every polling job gets a time slot, the most recently built jobs first. Polls before the slot
+ * of a job are skipped, and the job is polled when its slot comes.
+ */
+public class PollingWarmup {
+
+    private static final Logger logger = Logger.getLogger(PollingWarmup.class.getName());
+
+    private static final PollingWarmup instance = new PollingWarmup();
+
+    /* Job -> the time it may poll */
+    private final Map<String, Long> slots = new ConcurrentHashMap<>();
+
+    private final Random random = new Random();
+
+    public static PollingWarmup getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param job The full name of the job
+     * @return The number of milliseconds until the job may poll, 0 if it may poll now
+     */
+    public long getRemaining(String job) {
+        Long slot = slots.get(job);
+        if (slot == null) {
+            return 0;
+        }
+
+        long remaining = slot - System.currentTimeMillis();
+        if (remaining <= 0) {
+            slots.remove(job);
+            return 0;
+        }
+        return remaining;
+    }
+
+    /**
+     * Give every polling job a slot within the window
+     * @param jobs The jobs, in the order they poll
+     * @param window The window in milliseconds
+     */
+    synchronized void schedule(List<AbstractProject<?, ?>> jobs, long window) {
+        slots.clear();
+        if (jobs.isEmpty() || window < 1) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long width = window / jobs.size();
+        for (int i = 0; i < jobs.size(); i++) {
+            /* Jitter within the slot, so jobs with the same cron spec do not line up again */
+            long delay = i * width + (width > 0 ? (long) (random.nextDouble() * width) : 0);
+            final String job = jobs.get(i).getFullName();
+            slots.put(job, now + delay);
+            Timer.get().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    poll(job);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        logger.info(String.format("Spreading the first polls of %s jobs over %s seconds", jobs.size(), window / 1000));
+    }
+
+    private void poll(String job) {
+        slots.remove(job);
+
+        SecurityContext old = ACL.impersonate(ACL.SYSTEM);
+        try {
+            AbstractProject<?, ?> project = Jenkins.getInstance().getItemByFullName(job, AbstractProject.class);
+            if (project == null || project.isDisabled()) {
+                return;
+            }
+
+            SCMTrigger trigger = project.getTrigger(SCMTrigger.class);
+            if (trigger != null) {
+                logger.fine("Warm-up poll of " + job);
+                trigger.run();
+            }
+        } finally {
+            SecurityContextHolder.setContext(old);
+        }
+    }
+
+    /**
+     * Find the polling jobs when Jenkins has loaded them
+     */
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void warmup() {
+        Jenkins jenkins = Jenkins.getInstance();
+        CCUCMScm.CCUCMScmDescriptor desc = jenkins.getDescriptorByType(CCUCMScm.CCUCMScmDescriptor.class);
+        if (desc == null || desc.getPollingWarmup() < 1) {
+            return;
+        }
+
+        List<AbstractProject<?, ?>> jobs = new ArrayList<>();
+        for (AbstractProject<?, ?> project : jenkins.getAllItems(AbstractProject.class)) {
+            if (project.getScm() instanceof CCUCMScm && !project.isDisabled() && project.getTrigger(SCMTrigger.class) != null
+                    && ((CCUCMScm) project.getScm()).hasPolling()) {
+                jobs.add(project);
+            }
+        }
+
+        /* The most recently built jobs are most likely to have new baselines */
+        Collections.sort(jobs, new Comparator<AbstractProject<?, ?>>() {
+            @Override
+            public int compare(AbstractProject<?, ?> p1, AbstractProject<?, ?> p2) {
+                return Long.compare(getLastBuilt(p2), getLastBuilt(p1));
+            }
+        });
+
+        getInstance().schedule(jobs, desc.getPollingWarmup() * 60000L);
+    }
+
+    private static long getLastBuilt(AbstractProject<?, ?> project) {
+        AbstractBuild<?, ?> build = project.getLastBuild();
+        return build == null ? 0 : build.getTimeInMillis();
+    }
+}
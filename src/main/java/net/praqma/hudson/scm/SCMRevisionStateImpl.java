@@ -2,15 +2,223 @@ package net.praqma.hudson.scm;
 
 import hudson.scm.SCMRevisionState;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Component;
+import net.praqma.clearcase.ucm.entities.Stream;
+
 /**
- * 
+ * The polling state of a job. For each polled {@link Stream} and {@link Component} it holds a watermark, which is the
+ * newest {@link Baseline} built so far. Polling only has to look for {@link Baseline}s past the watermark.
+ *
  * @author Troels Selch
  * @author Margit Bennetzen
- * 
+ *
  */
 public class SCMRevisionStateImpl extends SCMRevisionState {
 
+    private static final String ANY_COMPONENT = "*";
+
+    private Map<String, Watermark> watermarks = new HashMap<>();
+
 	public SCMRevisionStateImpl() {
 		super();
 	}
+
+    /**
+     * Copy constructor
+     * @param state The state to copy the watermarks from
+     */
+    public SCMRevisionStateImpl( SCMRevisionStateImpl state ) {
+        super();
+        if( state != null ) {
+            watermarks.putAll( state.watermarks );
+        }
+    }
+
+    /**
+     * States saved before the watermarks were introduced have none
+     * @return This state
+     */
+    protected Object readResolve() {
+        if( watermarks == null ) {
+            watermarks = new HashMap<>();
+        }
+        return this;
+    }
+
+    private static String key( Stream stream, Component component ) {
+        return stream.getFullyQualifiedName() + "|" + ( component == null ? ANY_COMPONENT : component.getFullyQualifiedName() );
+    }
+
+    public Watermark getWatermark( Stream stream, Component component ) {
+        return watermarks.get( key( stream, component ) );
+    }
+
+    /**
+     * @param stream The polled {@link Stream}
+     * @param component The polled {@link Component}, null if polling all components
+     * @return The date of the watermark, null if there is no watermark
+     */
+    public Date getDate( Stream stream, Component component ) {
+        Watermark watermark = getWatermark( stream, component );
+        return watermark == null ? null : watermark.getDate();
+    }
+
+    /**
+     * @param component The polled {@link Component}, null if polling all components
+     * @return The dates of the watermarks for the {@link Component}, keyed by the fully qualified name of the {@link Stream}
+     */
+    public Map<String, Date> getDates( Component component ) {
+        String suffix = "|" + ( component == null ? ANY_COMPONENT : component.getFullyQualifiedName() );
+        Map<String, Date> dates = new HashMap<>();
+        for( Map.Entry<String, Watermark> entry : watermarks.entrySet() ) {
+            if( entry.getKey().endsWith( suffix ) ) {
+                dates.put( entry.getKey().substring( 0, entry.getKey().length() - suffix.length() ), entry.getValue().getDate() );
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Move the watermark of a {@link Stream} and {@link Component} to the given {@link Baseline}, if it is newer. A
+     * {@link Baseline} created at the same time as the watermark is added to it.
+     * @param stream The polled {@link Stream}
+     * @param component The polled {@link Component}, null if polling all components
+     * @param baseline The {@link Baseline}
+     */
+    public void record( Stream stream, Component component, Baseline baseline ) {
+        if( baseline.getDate() == null ) {
+            return;
+        }
+
+        Watermark watermark = getWatermark( stream, component );
+        if( watermark == null || baseline.getDate().after( watermark.getDate() ) ) {
+            watermarks.put( key( stream, component ), new Watermark( baseline.getDate(), baseline.getFullyQualifiedName() ) );
+        } else if( baseline.getDate().equals( watermark.getDate() ) && watermark.isPassedBy( baseline ) ) {
+            watermarks.put( key( stream, component ), watermark.tie( baseline.getFullyQualifiedName() ) );
+        }
+    }
+
+    /**
+     * @param stream The polled {@link Stream}
+     * @param component The polled {@link Component}, null if polling all components
+     * @param baselines The {@link Baseline}s found on the {@link Stream}
+     * @return The {@link Baseline}s past the watermark, in the same order
+     */
+    public List<Baseline> pastWatermark( Stream stream, Component component, List<Baseline> baselines ) {
+        Watermark watermark = getWatermark( stream, component );
+        if( watermark == null ) {
+            return baselines;
+        }
+
+        List<Baseline> past = new ArrayList<>();
+        for( Baseline baseline : baselines ) {
+            if( watermark.isPassedBy( baseline ) ) {
+                past.add( baseline );
+            }
+        }
+        return past;
+    }
+
+    /**
+     * @param d1 A date, possibly null
+     * @param d2 A date, possibly null
+     * @return The latest of the two dates, null if both are null
+     */
+    public static Date latest( Date d1, Date d2 ) {
+        if( d1 == null ) {
+            return d2;
+        }
+        if( d2 == null ) {
+            return d1;
+        }
+        return d1.after( d2 ) ? d1 : d2;
+    }
+
+    @Override
+    public String toString() {
+        return watermarks.toString();
+    }
+
+    /**
+     * The date and identity of the newest {@link Baseline} built from a {@link Stream}, and of the other {@link Baseline}s
+     * built from it with the same date. A watermark is never changed, as copied states share it.
+     */
+    public static class Watermark implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Date date;
+        private final String baseline;
+        /* The Baselines built with the same date, including the first one */
+        private Set<String> tied;
+
+        public Watermark( Date date, String baseline ) {
+            this( date, baseline, Collections.singleton( baseline ) );
+        }
+
+        private Watermark( Date date, String baseline, Set<String> tied ) {
+            this.date = date;
+            this.baseline = baseline;
+            this.tied = tied;
+        }
+
+        /**
+         * Watermarks saved before ties were kept only have the first {@link Baseline}
+         * @return This watermark
+         */
+        protected Object readResolve() {
+            if( tied == null ) {
+                tied = Collections.singleton( baseline );
+            }
+            return this;
+        }
+
+        /**
+         * @param bl The fully qualified name of another {@link Baseline} built with the same date
+         * @return A watermark also holding the {@link Baseline}
+         */
+        public Watermark tie( String bl ) {
+            Set<String> names = new HashSet<>( tied );
+            names.add( bl );
+            return new Watermark( date, baseline, Collections.unmodifiableSet( names ) );
+        }
+
+        public Date getDate() {
+            return date;
+        }
+
+        public String getBaseline() {
+            return baseline;
+        }
+
+        /**
+         * @param bl A {@link Baseline}
+         * @return True if the {@link Baseline} is newer than the watermark. A {@link Baseline} created at the same time also passes, unless it was built.
+         */
+        public boolean isPassedBy( Baseline bl ) {
+            if( bl.getDate() == null ) {
+                return true;
+            }
+            if( bl.getDate().after( date ) ) {
+                return true;
+            }
+            return bl.getDate().equals( date ) && !tied.contains( bl.getFullyQualifiedName() );
+        }
+
+        @Override
+        public String toString() {
+            return ( tied.size() > 1 ? tied.toString() : baseline ) + " (" + date + ")";
+        }
+    }
 }
@@ -0,0 +1,254 @@
+package net.praqma.hudson.scm;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Stream;
+
+/**
+ * Records when new {@link Baseline}s arrive on polled {@link Stream}s, and decides how often a job polls each
+ * {@link Stream}. A quiet {@link Stream} is polled less and less often, up to the maximum interval. As soon as a new
+ * {@link Baseline} arrives, the {@link Stream} is polled at the minimum interval again.
+ */
+public class StreamActivityTracker {
+
+    /**
+     * The number of arrivals remembered per {@link Stream}
+     */
+    private static final int HISTORY = 10;
+
+    /**
+     * The interval is this fraction of the time the {@link Stream} has been quiet
+     */
+    private static final int QUIET_DIVISOR = 4;
+
+    private static final StreamActivityTracker instance = new StreamActivityTracker();
+
+    /* Stream -> the times new baselines were found, oldest first */
+    private final Map<String, LinkedList<Long>> arrivals = new HashMap<>();
+
+    /* Stream -> the time it was first polled */
+    private final Map<String, Long> tracked = new HashMap<>();
+
+    /* Stream -> the date of the newest baseline found */
+    private final Map<String, Date> newest = new HashMap<>();
+
+    /* Job -> stream -> the time the job last polled it */
+    private final Map<String, Map<String, Long>> polled = new HashMap<>();
+
+    public static StreamActivityTracker getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param job The full name of the job
+     * @param stream The fully qualified name of the {@link Stream}
+     * @param min The minimum interval in milliseconds
+     * @param max The maximum interval in milliseconds
+     * @return True if the job should poll the {@link Stream} now
+     */
+    public synchronized boolean isDue(String job, String stream, long min, long max) {
+        Long last = getPolled(job).get(stream);
+        return last == null || System.currentTimeMillis() - last >= getInterval(stream, min, max);
+    }
+
+    /**
+     * @return The fully qualified names of the {@link Stream}s the job has polled before, and should not poll now
+     */
+    public synchronized Set<String> getNotDue(String job, long min, long max) {
+        Set<String> streams = new HashSet<>();
+        for (String stream : getPolled(job).keySet()) {
+            if (!isDue(job, stream, min, max)) {
+                streams.add(stream);
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * Record that a job polled a {@link Stream}. Polls keep finding the same {@link Baseline}s until they are built, and
+     * other jobs find them too, so only {@link Baseline}s newer than any found before count as an arrival.
+     * @param job The full name of the job
+     * @param stream The fully qualified name of the {@link Stream}
+     * @param found The {@link Baseline}s found past the watermark of the job
+     */
+    public synchronized void polled(String job, String stream, List<Baseline> found) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> streams = polled.get(job);
+        if (streams == null) {
+            streams = new HashMap<>();
+            polled.put(job, streams);
+        }
+        streams.put(stream, now);
+        if (!tracked.containsKey(stream)) {
+            tracked.put(stream, now);
+        }
+
+        boolean arrived = false;
+        Date latest = newest.get(stream);
+        for (Baseline baseline : found) {
+            if (baseline.getDate() != null && (latest == null || baseline.getDate().after(latest))) {
+                latest = baseline.getDate();
+                arrived = true;
+            }
+        }
+
+        if (arrived) {
+            newest.put(stream, latest);
+            LinkedList<Long> history = arrivals.get(stream);
+            if (history == null) {
+                history = new LinkedList<>();
+                arrivals.put(stream, history);
+            }
+            history.add(now);
+            while (history.size() > HISTORY) {
+                history.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * The interval grows with the time since the last arrival, or since tracking started if nothing arrived yet.
+     * @return The polling interval of the {@link Stream} in milliseconds, between min and max
+     */
+    public synchronized long getInterval(String stream, long min, long max) {
+        Long active = getLastArrival(stream);
+        if (active == null) {
+            active = tracked.get(stream);
+        }
+        if (active == null) {
+            return min;
+        }
+
+        long interval = (System.currentTimeMillis() - active) / QUIET_DIVISOR;
+        return Math.max(min, Math.min(max, interval));
+    }
+
+    /**
+     * Forget the {@link Stream}s polled by a job, and the activity of the {@link Stream}s no other job polls.
+     * @param job The full name of the job
+     */
+    public synchronized void forget(String job) {
+        if (polled.remove(job) == null) {
+            return;
+        }
+
+        Set<String> streams = new HashSet<>();
+        for (Map<String, Long> s : polled.values()) {
+            streams.addAll(s.keySet());
+        }
+
+        Iterator<String> it = tracked.keySet().iterator();
+        while (it.hasNext()) {
+            String stream = it.next();
+            if (!streams.contains(stream)) {
+                it.remove();
+                arrivals.remove(stream);
+                newest.remove(stream);
+            }
+        }
+    }
+
+    /**
+     * Keep the {@link Stream}s polled by a job when it is renamed or moved.
+     * @param from The old full name of the job
+     * @param to The new full name of the job
+     */
+    public synchronized void moved(String from, String to) {
+        Map<String, Long> streams = polled.remove(from);
+        if (streams != null) {
+            polled.put(to, streams);
+        }
+    }
+
+    private Long getLastArrival(String stream) {
+        LinkedList<Long> history = arrivals.get(stream);
+        return history == null || history.isEmpty() ? null : history.getLast();
+    }
+
+    private Map<String, Long> getPolled(String job) {
+        Map<String, Long> streams = polled.get(job);
+        return streams == null ? Collections.<String, Long>emptyMap() : streams;
+    }
+
+    /**
+     * @return The activity of the {@link Stream}s polled by a job
+     */
+    public synchronized List<Activity> getActivity(String job, long min, long max) {
+        List<Activity> activity = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : getPolled(job).entrySet()) {
+            String stream = entry.getKey();
+            LinkedList<Long> history = arrivals.get(stream);
+            activity.add(new Activity(stream, history == null ? 0 : history.size(), getLastArrival(stream), entry.getValue(), getInterval(stream, min, max)));
+        }
+        return activity;
+    }
+
+    @Extension
+    public static class Listener extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            getInstance().forget(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            getInstance().moved(oldFullName, newFullName);
+        }
+    }
+
+    public static class Activity {
+        private final String stream;
+        private final int arrivals;
+        private final Long lastArrival;
+        private final long lastPolled;
+        private final long interval;
+
+        Activity(String stream, int arrivals, Long lastArrival, long lastPolled, long interval) {
+            this.stream = stream;
+            this.arrivals = arrivals;
+            this.lastArrival = lastArrival;
+            this.lastPolled = lastPolled;
+            this.interval = interval;
+        }
+
+        public String getStream() {
+            return stream;
+        }
+
+        public int getArrivals() {
+            return arrivals;
+        }
+
+        public Date getLastArrival() {
+            return lastArrival == null ? null : new Date(lastArrival);
+        }
+
+        public Date getLastPolled() {
+            return new Date(lastPolled);
+        }
+
+        public long getIntervalMinutes() {
+            return TimeUnit.MILLISECONDS.toMinutes(interval);
+        }
+
+        public Date getNextPoll() {
+            return new Date(lastPolled + interval);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package net.praqma.hudson.scm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import net.praqma.clearcase.ucm.entities.Stream;
+
+/**
+ * Stops scanning related {@link Stream}s that keep failing, like obsolete or locked streams, shared by all jobs on the master.
+ * After {@link #THRESHOLD} failures in a row the breaker of a {@link Stream} opens, and the {@link Stream} is skipped. When the
+ * backoff has passed, the breaker is half open and the {@link Stream} is scanned again. If that scan fails, the breaker opens
+ * again for twice as long, up to {@link #MAX_BACKOFF}. A successful scan closes it.
+ */
+public class StreamCircuitBreaker {
+
+    private static final Logger logger = Logger.getLogger(StreamCircuitBreaker.class.getName());
+
+    /**
+     * The number of failures in a row that opens the breaker
+     */
+    public static final int THRESHOLD = 2;
+
+    /**
+     * The time a breaker is open the first time, in milliseconds
+     */
+    public static final long BASE_BACKOFF = 60000;
+
+    /**
+     * The longest time a breaker is open, in milliseconds
+     */
+    public static final long MAX_BACKOFF = 4 * 3600000;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final StreamCircuitBreaker instance = new StreamCircuitBreaker();
+
+    /* Stream -> its breaker, only for streams that failed */
+    private final Map<String, Breaker> breakers = new HashMap<>();
+
+    private final long baseBackoff;
+    private final long maxBackoff;
+
+    public StreamCircuitBreaker() {
+        this(BASE_BACKOFF, MAX_BACKOFF);
+    }
+
+    /**
+     * @param baseBackoff The time a breaker is open the first time, in milliseconds
+     * @param maxBackoff The longest time a breaker is open, in milliseconds
+     */
+    public StreamCircuitBreaker(long baseBackoff, long maxBackoff) {
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public static StreamCircuitBreaker getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return The fully qualified names of the {@link Stream}s that must not be scanned now
+     */
+    public synchronized Set<String> getOpen() {
+        Set<String> open = new HashSet<>();
+        for (Breaker breaker : breakers.values()) {
+            if (breaker.getState() == State.OPEN) {
+                open.add(breaker.stream);
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Record that a {@link Stream} was scanned
+     * @param stream The fully qualified name of the {@link Stream}
+     */
+    public synchronized void success(String stream) {
+        if (breakers.remove(stream) != null) {
+            logger.info("Closing the circuit breaker of " + stream);
+        }
+    }
+
+    /**
+     * Record that scanning a {@link Stream} failed
+     * @param stream The fully qualified name of the {@link Stream}
+     * @param error The error
+     */
+    public synchronized void failure(String stream, String error) {
+        Breaker breaker = breakers.get(stream);
+        if (breaker == null) {
+            breaker = new Breaker(stream);
+            breakers.put(stream, breaker);
+        }
+
+        breaker.failures++;
+        breaker.error = error;
+        if (breaker.failures >= THRESHOLD) {
+            long backoff = Math.min(maxBackoff, baseBackoff << Math.min(breaker.failures - THRESHOLD, 20));
+            breaker.openUntil = System.currentTimeMillis() + backoff;
+            logger.warning(String.format("%s failed %s times in a row, not scanning it for %s seconds: %s", stream, breaker.failures, backoff / 1000, error));
+        }
+    }
+
+    /**
+     * Close the breaker of a {@link Stream}, so it is scanned on the next poll
+     * @param stream The fully qualified name of the {@link Stream}
+     */
+    public synchronized void reset(String stream) {
+        breakers.remove(stream);
+    }
+
+    /**
+     * @param streams The fully qualified names of the {@link Stream}s
+     * @return The breakers of those {@link Stream}s that have failed, open or not
+     */
+    public synchronized List<Status> getStatus(Collection<String> streams) {
+        List<Status> status = new ArrayList<>();
+        for (String stream : streams) {
+            Breaker breaker = breakers.get(stream);
+            if (breaker != null) {
+                status.add(new Status(breaker));
+            }
+        }
+        return status;
+    }
+
+    private static class Breaker {
+        private final String stream;
+        private int failures;
+        private String error;
+        private long openUntil;
+
+        Breaker(String stream) {
+            this.stream = stream;
+        }
+
+        State getState() {
+            if (failures < THRESHOLD) {
+                return State.CLOSED;
+            }
+            return System.currentTimeMillis() < openUntil ? State.OPEN : State.HALF_OPEN;
+        }
+    }
+
+    /**
+     * A snapshot of the breaker of a {@link Stream}
+     */
+    public static class Status {
+        private final String stream;
+        private final State state;
+        private final int failures;
+        private final String error;
+        private final long openUntil;
+
+        Status(Breaker breaker) {
+            this.stream = breaker.stream;
+            this.state = breaker.getState();
+            this.failures = breaker.failures;
+            this.error = breaker.error;
+            this.openUntil = breaker.openUntil;
+        }
+
+        public String getStream() {
+            return stream;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return The time the {@link Stream} is scanned again, null if the breaker is closed
+         */
+        public Date getRetry() {
+            return state == State.CLOSED ? null : new Date(openUntil);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package net.praqma.hudson.scm;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Stream;
+
+/**
+ * The outcome of listing the {@link Baseline}s of a single {@link Stream} during a scan of related streams.
+ * A failed scan carries the error message instead of the {@link Baseline}s. A skipped {@link Stream} was not scanned at all.
+ */
+public class StreamScanResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Stream stream;
+    private final List<Baseline> baselines;
+    private final String error;
+    private final boolean skipped;
+
+    private StreamScanResult(Stream stream, List<Baseline> baselines, String error, boolean skipped) {
+        this.stream = stream;
+        this.baselines = baselines;
+        this.error = error;
+        this.skipped = skipped;
+    }
+
+    public static StreamScanResult found(Stream stream, List<Baseline> baselines) {
+        return new StreamScanResult(stream, new ArrayList<>(baselines), null, false);
+    }
+
+    public static StreamScanResult failed(Stream stream, String error) {
+        return new StreamScanResult(stream, new ArrayList<Baseline>(), error, false);
+    }
+
+    public static StreamScanResult skipped(Stream stream) {
+        return new StreamScanResult(stream, new ArrayList<Baseline>(), null, true);
+    }
+
+    public Stream getStream() {
+        return stream;
+    }
+
+    public List<Baseline> getBaselines() {
+        return baselines;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    public boolean isSkipped() {
+        return skipped;
+    }
+}
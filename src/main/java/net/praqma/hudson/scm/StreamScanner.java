@@ -0,0 +1,194 @@
+package net.praqma.hudson.scm;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Stream;
+import org.apache.commons.lang.exception.ExceptionUtils;
+
+/**
+ * Lists the {@link Baseline}s of a number of {@link Stream}s using a bounded number of threads.
+ * The results are returned in the order of the given streams, and a failing stream never affects the others.
+ * A {@link Stream} taking longer than the timeout is cancelled and reported as failed.
+ */
+public class StreamScanner {
+
+    private static final Logger logger = Logger.getLogger(StreamScanner.class.getName());
+
+    /**
+     * Lists the {@link Baseline}s of a single {@link Stream}.
+     */
+    public interface BaselineLister {
+        List<Baseline> list(Stream stream) throws IOException, InterruptedException;
+    }
+
+    /**
+     * The number of milliseconds to wait for a queued scan before checking whether it started
+     */
+    private static final long QUEUED_WAIT = 1000;
+
+    private final int concurrency;
+    private final long timeout;
+
+    public StreamScanner(int concurrency) {
+        this(concurrency, 0);
+    }
+
+    /**
+     * @param concurrency The maximum number of {@link Stream}s scanned at the same time
+     * @param timeout The time in milliseconds a single {@link Stream} may take. If less than 1, there is no timeout.
+     */
+    public StreamScanner(int concurrency, long timeout) {
+        this.concurrency = Math.max(1, concurrency);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Scan the given {@link Stream}s.
+     *
+     * @param streams The {@link Stream}s to scan
+     * @param lister The operation listing the {@link Baseline}s of one {@link Stream}
+     * @return One {@link StreamScanResult} per {@link Stream}, in the same order as the given streams
+     * @throws InterruptedException Thrown when the scan is interrupted
+     */
+    public List<StreamScanResult> scan(List<Stream> streams, final BaselineLister lister) throws InterruptedException {
+        List<StreamScanResult> results = new ArrayList<>();
+        int threads = Math.min(concurrency, streams.size());
+
+        /* A timeout needs a thread to give up on */
+        if (threads <= 1 && timeout < 1) {
+            for (Stream s : streams) {
+                results.add(scanStream(s, lister));
+            }
+            return results;
+        }
+
+        threads = Math.max(1, threads);
+        logger.fine(String.format("Scanning %s streams using %s threads", streams.size(), threads));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new NamingThreadFactory(new DaemonThreadFactory(), "CCUCM stream scan"));
+        try {
+            List<Future<StreamScanResult>> futures = new ArrayList<>();
+            List<AtomicLong> started = new ArrayList<>();
+            for (final Stream s : streams) {
+                final AtomicLong start = new AtomicLong();
+                started.add(start);
+                futures.add(executor.submit(new Callable<StreamScanResult>() {
+                    @Override
+                    public StreamScanResult call() throws Exception {
+                        start.set(System.currentTimeMillis());
+                        return scanStream(s, lister);
+                    }
+                }));
+            }
+
+            /* Every stream gets its turn within this time, unless a cancelled scan does not give up its thread */
+            long deadline = System.currentTimeMillis() + timeout * ((streams.size() + threads - 1) / threads);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(await(futures.get(i), started.get(i), streams.get(i), deadline));
+                } catch (ExecutionException e) {
+                    results.add(StreamScanResult.failed(streams.get(i), e.getMessage()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return results;
+    }
+
+    /**
+     * Wait for the scan of a {@link Stream}. The timeout counts from when the scan started, not from when it was queued.
+     * A scan that has not started by the deadline is cancelled too.
+     */
+    private StreamScanResult await(Future<StreamScanResult> future, AtomicLong started, Stream stream, long deadline) throws ExecutionException, InterruptedException {
+        if (timeout < 1) {
+            return future.get();
+        }
+
+        while (true) {
+            /* A scan finishing while an earlier stream was awaited is not late */
+            if (future.isDone()) {
+                return future.get();
+            }
+
+            long start = started.get();
+            long now = System.currentTimeMillis();
+            long wait = start == 0 ? deadline - now : start + timeout - now;
+            if (wait <= 0) {
+                future.cancel(true);
+                logger.warning(String.format("Scanning %s timed out after %s ms", stream, timeout));
+                return StreamScanResult.failed(stream, "Timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeout) + " seconds");
+            }
+
+            try {
+                /* While queued, look again soon, to time the scan from when it starts */
+                return future.get(start == 0 ? Math.min(wait, QUEUED_WAIT) : wait, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                /* Check whether it has been running for the whole timeout, or was only waiting for a thread */
+            }
+        }
+    }
+
+    private StreamScanResult scanStream(Stream stream, BaselineLister lister) throws InterruptedException {
+        try {
+            return StreamScanResult.found(stream, lister.list(stream));
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            Throwable root = ExceptionUtils.getRootCause(e);
+            if (root == null) {
+                root = e;
+            }
+            logger.log(Level.WARNING, "Could not get baselines from " + stream, root);
+            return StreamScanResult.failed(stream, root.getMessage());
+        }
+    }
+
+    /**
+     * Merge the {@link Baseline}s of the scanned {@link Stream}s into one list, ordered by date. {@link Baseline}s
+     * created at the same time are ordered by their fully qualified name, which makes the order deterministic.
+     *
+     * @param results The results of a scan
+     * @return The {@link Baseline}s found, oldest first
+     */
+    public static List<Baseline> merge(Collection<StreamScanResult> results) {
+        List<Baseline> baselines = new ArrayList<>();
+        for (StreamScanResult result : results) {
+            baselines.addAll(result.getBaselines());
+        }
+
+        Collections.sort(baselines, new Comparator<Baseline>() {
+            @Override
+            public int compare(Baseline b1, Baseline b2) {
+                if (b1.getDate() != null && b2.getDate() != null) {
+                    int c = b1.getDate().compareTo(b2.getDate());
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+                return b1.getFullyQualifiedName().compareTo(b2.getFullyQualifiedName());
+            }
+        });
+
+        return baselines;
+    }
+}
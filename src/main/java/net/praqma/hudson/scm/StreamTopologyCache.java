@@ -0,0 +1,169 @@
+package net.praqma.hudson.scm;
+
+import hudson.XmlFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+import net.praqma.clearcase.exceptions.UnableToInitializeEntityException;
+import net.praqma.clearcase.ucm.entities.Stream;
+
+/**
+ * Remembers the related {@link Stream}s of a {@link Stream}, the child streams, sibling streams or the streams delivering
+ * through a hyperlink. The stream hierarchy rarely changes, so resolving it on every poll is wasted work. The relations are
+ * kept for a time to live, survive restarts and can be invalidated by hand.
+ */
+public class StreamTopologyCache {
+
+    private static final Logger logger = Logger.getLogger(StreamTopologyCache.class.getName());
+
+    private static final StreamTopologyCache instance = new StreamTopologyCache();
+
+    private transient boolean loaded = false;
+
+    private final Map<String, Topology> topologies = new HashMap<>();
+
+    public static StreamTopologyCache getInstance() {
+        return instance;
+    }
+
+    private static String key(Stream stream, Polling polling, boolean multisitePolling, String hyperLinkName) {
+        String key = stream.getFullyQualifiedName() + "|" + polling.getType() + "|" + multisitePolling;
+        if (polling.getType() == Polling.PollingType.siblingshlink) {
+            key += "|" + hyperLinkName;
+        }
+        return key;
+    }
+
+    /**
+     * @param ttl The time to live in milliseconds. If less than 1, the cache is not used.
+     * @return The related {@link Stream}s, or null if they are not known or have expired
+     */
+    public synchronized List<Stream> get(Stream stream, Polling polling, boolean multisitePolling, String hyperLinkName, long ttl) {
+        if (ttl < 1) {
+            return null;
+        }
+
+        load();
+        Topology topology = topologies.get(key(stream, polling, multisitePolling, hyperLinkName));
+        if (topology == null || System.currentTimeMillis() - topology.resolved > ttl) {
+            return null;
+        }
+
+        try {
+            List<Stream> streams = new ArrayList<>();
+            for (String fqname : topology.streams) {
+                streams.add(Stream.get(fqname));
+            }
+            return streams;
+        } catch (UnableToInitializeEntityException e) {
+            logger.log(Level.WARNING, "Unable to initialize cached related streams of " + stream, e);
+            return null;
+        }
+    }
+
+    public synchronized void put(Stream stream, Polling polling, boolean multisitePolling, String hyperLinkName, List<Stream> streams) {
+        load();
+        List<String> fqnames = new ArrayList<>();
+        for (Stream s : streams) {
+            fqnames.add(s.getFullyQualifiedName());
+        }
+        topologies.put(key(stream, polling, multisitePolling, hyperLinkName), new Topology(fqnames, System.currentTimeMillis()));
+        save();
+    }
+
+    /**
+     * Forget the related streams of a {@link Stream}, for all polling types.
+     * @param stream The fully qualified name of the {@link Stream}
+     */
+    public synchronized void invalidate(String stream) {
+        load();
+        Iterator<String> it = topologies.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().startsWith(stream + "|")) {
+                it.remove();
+            }
+        }
+        save();
+    }
+
+    public synchronized void invalidateAll() {
+        load();
+        topologies.clear();
+        save();
+    }
+
+    /**
+     * @param stream The fully qualified name of the {@link Stream}
+     * @return The related streams of the {@link Stream} per polling type, keyed by the polling type
+     */
+    public synchronized Map<String, Topology> getTopologies(String stream) {
+        load();
+        Map<String, Topology> found = new HashMap<>();
+        for (Map.Entry<String, Topology> entry : topologies.entrySet()) {
+            if (entry.getKey().startsWith(stream + "|")) {
+                found.put(entry.getKey().substring(stream.length() + 1), entry.getValue());
+            }
+        }
+        return found;
+    }
+
+    private XmlFile getConfigFile() {
+        return new XmlFile(new File(Jenkins.getInstance().getRootDir(), StreamTopologyCache.class.getName() + ".xml"));
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        XmlFile file = getConfigFile();
+        if (file.exists()) {
+            try {
+                file.unmarshal(this);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to load the stream topology cache", e);
+            }
+        }
+    }
+
+    private void save() {
+        try {
+            getConfigFile().write(this);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to save the stream topology cache", e);
+        }
+    }
+
+    /**
+     * The related streams of a {@link Stream}
+     */
+    public static class Topology {
+        private final List<String> streams;
+        private final long resolved;
+
+        public Topology(List<String> streams, long resolved) {
+            this.streams = streams;
+            this.resolved = resolved;
+        }
+
+        public List<String> getStreams() {
+            return Collections.unmodifiableList(streams);
+        }
+
+        public Date getResolved() {
+            return new Date(resolved);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package net.praqma.hudson.scm;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AbstractProject;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.StreamBuildListener;
+import hudson.model.TaskListener;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+import net.praqma.hudson.remoting.ProvisionViews;
+import net.praqma.hudson.remoting.ReclaimViews;
+import net.praqma.hudson.remoting.ViewPool;
+
+/**
+ * Keeps the {@link ViewPool}s filled up and rebased on the online agents, for every job using the {@link CCUCMScm} that can
+ * run there, and removes the pools no job wants anymore.
+ */
+@Extension
+public class ViewPoolWork extends AsyncPeriodicWork {
+
+    private static final Logger logger = Logger.getLogger(ViewPoolWork.class.getName());
+
+    /* Agent and key -> the views after the last round */
+    private static final Map<String, ViewPool.Occupancy> occupancy = new ConcurrentHashMap<>();
+
+    public ViewPoolWork() {
+        super("ClearCase UCM view pool");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.MINUTES.toMillis(10);
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException, InterruptedException {
+        CCUCMScm.CCUCMScmDescriptor desc = Jenkins.getInstance().getDescriptorByType(CCUCMScm.CCUCMScmDescriptor.class);
+        int size = desc == null ? 0 : desc.getViewPoolSize();
+
+        StreamBuildListener buildListener = new StreamBuildListener(listener.getLogger(), Charset.defaultCharset());
+        Map<String, ViewPool.Occupancy> current = new HashMap<>();
+        Set<String> done = new HashSet<>();
+        /* Agent -> the keys of the pools still wanted there */
+        Map<String, Set<String>> wanted = new HashMap<>();
+        /* Without pooling, every pool is reclaimed */
+        List<AbstractProject> projects = size < 1 ? Collections.<AbstractProject>emptyList() : Jenkins.getInstance().getAllItems(AbstractProject.class);
+        for (AbstractProject<?, ?> project : projects) {
+            if (!(project.getScm() instanceof CCUCMScm) || project.isDisabled()) {
+                continue;
+            }
+
+            ProvisionViews provisioner = ((CCUCMScm) project.getScm()).getViewPoolProvisioner(project, buildListener, size);
+            if (provisioner == null) {
+                continue;
+            }
+
+            for (Computer computer : Jenkins.getInstance().getComputers()) {
+                Node node = computer.getNode();
+                if (node == null || computer.isOffline() || node.getNumExecutors() < 1 || !canRun(project, node)) {
+                    continue;
+                }
+
+                /* Jobs building the same stream share the views */
+                String id = node.getNodeName() + " " + provisioner.getKey();
+                FilePath root = node.getRootPath();
+                if (root == null || !done.add(id)) {
+                    continue;
+                }
+
+                if (!wanted.containsKey(node.getNodeName())) {
+                    wanted.put(node.getNodeName(), new HashSet<String>());
+                }
+                wanted.get(node.getNodeName()).add(provisioner.getKey());
+
+                try {
+                    current.put(id, root.child(ViewPool.DIR).act(provisioner));
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Unable to fill up the view pool of " + id, e);
+                }
+            }
+        }
+
+        /* Remove the pools of deleted or reconfigured jobs, and of jobs that can no longer run on the agent */
+        for (Computer computer : Jenkins.getInstance().getComputers()) {
+            Node node = computer.getNode();
+            FilePath root = node == null || computer.isOffline() ? null : node.getRootPath();
+            if (root == null) {
+                continue;
+            }
+
+            Set<String> keys = wanted.containsKey(node.getNodeName()) ? wanted.get(node.getNodeName()) : Collections.<String>emptySet();
+            try {
+                root.child(ViewPool.DIR).act(new ReclaimViews(buildListener, keys));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to reclaim the view pools of " + node.getNodeName(), e);
+            }
+        }
+
+        occupancy.keySet().retainAll(current.keySet());
+        occupancy.putAll(current);
+    }
+
+    private static boolean canRun(AbstractProject<?, ?> project, Node node) {
+        Label label = project.getAssignedLabel();
+        if (label == null) {
+            return node.getMode() == Node.Mode.NORMAL;
+        }
+        return label.contains(node);
+    }
+
+    /**
+     * @return The views of every agent and key after the last round
+     */
+    public static Map<String, ViewPool.Occupancy> getOccupancy() {
+        return new HashMap<>(occupancy);
+    }
+
+    public static String getSummary() {
+        int ready = 0;
+        int wanted = 0;
+        int provisioned = 0;
+        for (ViewPool.Occupancy o : occupancy.values()) {
+            ready += o.getReady();
+            wanted += o.getWanted();
+            provisioned += o.getProvisioned();
+        }
+        return String.format("%s of %s views ready in %s pools, %s made in the last round", ready, wanted, occupancy.size(), provisioned);
+    }
+}
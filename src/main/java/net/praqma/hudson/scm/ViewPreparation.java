@@ -0,0 +1,80 @@
+package net.praqma.hudson.scm;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Prepares the views of builds scheduled by polling while they wait in the queue, on threads of its own. A job has at most
+ * one preparation running, and preparations that cannot be queued are dropped, the build then makes its view itself.
+ */
+public class ViewPreparation {
+
+    private static final Logger logger = Logger.getLogger(ViewPreparation.class.getName());
+
+    public static final int THREADS = 4;
+
+    public static final int QUEUE_SIZE = 50;
+
+    private static final ViewPreparation instance = new ViewPreparation();
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(QUEUE_SIZE), new NamingThreadFactory(new DaemonThreadFactory(), "CCUCM view preparation"));
+
+    /* The jobs with a preparation queued or running */
+    private final Set<String> jobs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private ViewPreparation() {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static ViewPreparation getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param job The full name of the job
+     * @param preparation The preparation
+     * @return True if the preparation was queued
+     */
+    public boolean prepare(final String job, final Callable<?> preparation) {
+        if (!jobs.add(job)) {
+            logger.fine("The view of " + job + " is already being prepared");
+            return false;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        preparation.call();
+                    } catch (Exception e) {
+                        logger.log(Level.WARNING, "Unable to prepare the view of " + job, e);
+                    } finally {
+                        jobs.remove(job);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job);
+            logger.fine("Too many views being prepared, not preparing the view of " + job);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s preparing, %s waiting", executor.getActiveCount(), executor.getQueue().size());
+    }
+}
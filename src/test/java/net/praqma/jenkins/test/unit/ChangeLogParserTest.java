@@ -0,0 +1,169 @@
+package net.praqma.jenkins.test.unit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.praqma.clearcase.ucm.entities.Version;
+import net.praqma.hudson.Util;
+import net.praqma.hudson.scm.ChangeLogEntryImpl;
+import net.praqma.hudson.scm.ChangeLogParserImpl;
+import net.praqma.hudson.scm.ChangeLogSetImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ChangeLogParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, String> owners = new HashMap<>();
+
+    private Version version(String file, String number) {
+        Version version = mock(Version.class);
+        when(version.getFullyQualifiedName()).thenReturn(file + "@@" + number);
+        when(version.getSFile()).thenReturn(file);
+        when(version.getVersion()).thenReturn(number);
+        owners.put(file + "@@" + number, "owner");
+        return version;
+    }
+
+    private List<Version> versions(String activity, int count) {
+        List<Version> versions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            versions.add(version("\\vob\\" + activity + "\\file" + i + ".c", "\\main\\" + (i + 1)));
+        }
+        return versions;
+    }
+
+    private static List<String> paths(List<Version> versions) {
+        List<String> paths = new ArrayList<>();
+        for (Version version : versions) {
+            paths.add(version.getSFile() + " (" + version.getVersion() + ") user: owner");
+        }
+        return paths;
+    }
+
+    private File write(String baseline, Map<String, List<Version>> activities) throws Exception {
+        File changelog = folder.newFile("changelog.xml");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(changelog), "UTF-8")) {
+            Util.ChangeSetGenerator csg = new Util.ChangeSetGenerator(writer).setOwners(owners);
+            csg.createHeader(baseline);
+            for (Map.Entry<String, List<Version>> activity : activities.entrySet()) {
+                csg.addAcitivity(activity.getKey(), "Headline of " + activity.getKey(), "user", activity.getValue());
+            }
+            assertNull(csg.close().get());
+        }
+        return changelog;
+    }
+
+    @Test
+    public void testParsesWrittenChangeLog() throws Exception {
+        Map<String, List<Version>> activities = new LinkedHashMap<>();
+        activities.put("act1", versions("act1", 2));
+        activities.put("act2", Collections.<Version>emptyList());
+        activities.put("act3 <&> \u00e6\u00f8\u00e5", versions("act3", 3));
+        File changelog = write("bl1", activities);
+
+        ChangeLogSetImpl set = (ChangeLogSetImpl) new ChangeLogParserImpl().parse(null, changelog);
+        List<ChangeLogEntryImpl> entries = set.getEntries();
+
+        /* Activities without versions are left out of the change log */
+        assertEquals(2, entries.size());
+        assertEquals("act1", entries.get(0).getMsg());
+        assertEquals("Headline of act1", entries.get(0).getActHeadline());
+        assertEquals("act3 <&> \u00e6\u00f8\u00e5", entries.get(1).getMsg());
+        assertEquals("Headline of act3 <&> \u00e6\u00f8\u00e5", entries.get(1).getActHeadline());
+
+        /* The files are read when needed, in any order */
+        assertEquals(paths(activities.get("act3 <&> \u00e6\u00f8\u00e5")), new ArrayList<>(entries.get(1).getAffectedPaths()));
+        assertEquals(paths(activities.get("act1")), new ArrayList<>(entries.get(0).getAffectedPaths()));
+    }
+
+    @Test
+    public void testFilesBeyondTheBatch() throws Exception {
+        Map<String, List<Version>> activities = new LinkedHashMap<>();
+        activities.put("big", versions("big", ChangeLogParserImpl.PATH_BATCH));
+        activities.put("small", versions("small", 2));
+        File changelog = write("bl2", activities);
+
+        ChangeLogSetImpl set = (ChangeLogSetImpl) new ChangeLogParserImpl().parse(null, changelog);
+        List<ChangeLogEntryImpl> entries = set.getEntries();
+
+        assertEquals(ChangeLogParserImpl.PATH_BATCH, entries.get(0).getAffectedPaths().size());
+        assertEquals(paths(activities.get("small")), new ArrayList<>(entries.get(1).getAffectedPaths()));
+    }
+
+    @Test
+    public void testEmptyChangeLog() throws Exception {
+        File changelog = write("bl3", Collections.<String, List<Version>>emptyMap());
+        assertTrue(new ChangeLogParserImpl().parse(null, changelog).isEmptySet());
+    }
+
+    @Test
+    public void testChangeLogInPlatformEncoding() throws Exception {
+        /* Change logs used to be written with the encoding of the platform, whatever they declared */
+        String changelog = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><changelog><changeset><entry>"
+                + "<activity><actName>act1 \u00e6\u00f8\u00e5</actName><actHeadline>Headline</actHeadline><author>user</author>"
+                + "<file>\\vob\\\u00e6\u00f8\u00e5.c (\\main\\1) user: owner</file></activity>"
+                + "<activity><actName>act2</actName><actHeadline>Headline</actHeadline><author>user</author>"
+                + "<file>\\vob\\file.c (\\main\\2) user: owner</file></activity>"
+                + "</entry></changeset></changelog>";
+        File file = folder.newFile("old.xml");
+        Files.write(file.toPath(), changelog.getBytes());
+
+        ChangeLogSetImpl set = (ChangeLogSetImpl) new ChangeLogParserImpl().parse(null, file);
+        List<ChangeLogEntryImpl> entries = set.getEntries();
+
+        assertEquals(2, entries.size());
+        assertEquals("act2", entries.get(1).getMsg());
+        assertEquals(Collections.singletonList("\\vob\\file.c (\\main\\2) user: owner"), new ArrayList<>(entries.get(1).getAffectedPaths()));
+        assertEquals(1, entries.get(0).getAffectedPaths().size());
+        if (Charset.defaultCharset().newEncoder().canEncode("\u00e6\u00f8\u00e5")) {
+            assertEquals("act1 \u00e6\u00f8\u00e5", entries.get(0).getMsg());
+            assertEquals("\\vob\\\u00e6\u00f8\u00e5.c (\\main\\1) user: owner", entries.get(0).getAffectedPaths().iterator().next());
+        }
+    }
+
+    @Test
+    public void testChangeLogNotInUtf8() throws Exception {
+        File file = folder.newFile("latin1.xml");
+        Files.write(file.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><changelog><changeset><entry>"
+                + "<activity><actName>act1</actName><file>\u00e6\u00f8\u00e5.c</file></activity>"
+                + "<activity><actName>act2</actName><file>file.c</file></activity>"
+                + "</entry></changeset></changelog>").getBytes("ISO-8859-1"));
+
+        /* Bytes that are not UTF-8 do not cut the change log short */
+        ChangeLogSetImpl set = (ChangeLogSetImpl) new ChangeLogParserImpl().parse(null, file);
+        assertEquals(2, set.getEntries().size());
+        assertEquals("act2", set.getEntries().get(1).getMsg());
+        assertEquals(1, set.getEntries().get(0).getAffectedPaths().size());
+        assertEquals(Collections.singletonList("file.c"), new ArrayList<>(set.getEntries().get(1).getAffectedPaths()));
+    }
+
+    @Test
+    public void testUnreadableChangeLog() throws Exception {
+        File changelog = folder.newFile("broken.xml");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(changelog), "UTF-8")) {
+            writer.write("<changelog><changeset><entry><activity><actName>act1</actName></activity><activity><actName>act2</actName>");
+        }
+
+        /* A change log cut short shows the activities read until then */
+        ChangeLogSetImpl set = (ChangeLogSetImpl) new ChangeLogParserImpl().parse(null, changelog);
+        assertEquals(1, set.getEntries().size());
+        assertEquals("act1", set.getEntries().get(0).getMsg());
+    }
+}
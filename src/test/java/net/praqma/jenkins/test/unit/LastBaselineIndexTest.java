@@ -0,0 +1,130 @@
+package net.praqma.jenkins.test.unit;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+
+import java.io.File;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.hudson.CCUCMBuildAction;
+import net.praqma.hudson.scm.LastBaselineIndex;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class LastBaselineIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = folder.newFolder("job");
+    }
+
+    /**
+     * A job as it is after a restart, with the index only on disk
+     */
+    private AbstractProject project(AbstractBuild... builds) {
+        AbstractProject project = mock(AbstractProject.class);
+        when(project.getRootDir()).thenReturn(root);
+        when(project.getFullName()).thenReturn("job");
+
+        AbstractBuild previous = null;
+        for (AbstractBuild build : builds) {
+            when(build.getParent()).thenReturn(project);
+            when(build.getPreviousBuild()).thenReturn(previous);
+            when(project.getBuildByNumber(build.getNumber())).thenReturn(build);
+            previous = build;
+        }
+        when(project.getLastBuild()).thenReturn(previous);
+        return project;
+    }
+
+    private static AbstractBuild build(int number, boolean withBaseline) {
+        AbstractBuild build = mock(AbstractBuild.class);
+        when(build.getNumber()).thenReturn(number);
+        CCUCMBuildAction action = mock(CCUCMBuildAction.class);
+        when(action.getBaseline()).thenReturn(withBaseline ? mock(Baseline.class) : null);
+        when(build.getAction(CCUCMBuildAction.class)).thenReturn(action);
+        return build;
+    }
+
+    @Test
+    public void testFindsAndIndexesLastBaseline() {
+        AbstractBuild b1 = build(1, true);
+        AbstractBuild b2 = build(2, true);
+        AbstractBuild b3 = build(3, false);
+
+        CCUCMBuildAction action = LastBaselineIndex.getLastAction(project(b1, b2, b3));
+        assertSame(b2.getAction(CCUCMBuildAction.class), action);
+
+        /* After a restart, the build is found without going through the builds */
+        AbstractProject restarted = project(b1, b2, b3);
+        assertSame(action, LastBaselineIndex.getLastAction(restarted));
+        verify(restarted, never()).getLastBuild();
+    }
+
+    @Test
+    public void testNoBaseline() {
+        AbstractBuild b1 = build(1, false);
+        assertNull(LastBaselineIndex.getLastAction(project(b1)));
+
+        AbstractProject restarted = project(b1);
+        assertNull(LastBaselineIndex.getLastAction(restarted));
+        verify(restarted, never()).getLastBuild();
+    }
+
+    @Test
+    public void testUpdateOnlyMovesForward() {
+        AbstractBuild b4 = build(4, true);
+        AbstractBuild b5 = build(5, true);
+        AbstractBuild b6 = build(6, false);
+        project(b4, b5, b6);
+
+        LastBaselineIndex.update(b5);
+        LastBaselineIndex.update(b4);
+        LastBaselineIndex.update(b6);
+
+        AbstractProject restarted = project(b4, b5, b6);
+        assertSame(b5.getAction(CCUCMBuildAction.class), LastBaselineIndex.getLastAction(restarted));
+        verify(restarted, never()).getLastBuild();
+    }
+
+    @Test
+    public void testInvalidate() {
+        AbstractBuild b1 = build(1, true);
+        AbstractBuild b2 = build(2, true);
+        project(b1, b2);
+        LastBaselineIndex.update(b2);
+
+        /* Only deleting the indexed build invalidates the index */
+        LastBaselineIndex.invalidate(b1);
+        assertTrue(new File(root, "ccucm-baseline-index.xml").exists());
+        LastBaselineIndex.invalidate(b2);
+        assertFalse(new File(root, "ccucm-baseline-index.xml").exists());
+
+        AbstractProject restarted = project(b1);
+        assertSame(b1.getAction(CCUCMBuildAction.class), LastBaselineIndex.getLastAction(restarted));
+        verify(restarted).getLastBuild();
+    }
+
+    @Test
+    public void testIndexWithoutBaseline() {
+        AbstractBuild b1 = build(1, true);
+        AbstractBuild b2 = build(2, true);
+        project(b1, b2);
+        LastBaselineIndex.update(b2);
+
+        /* The indexed build lost its baseline */
+        AbstractBuild changed = build(2, false);
+        assertSame(b1.getAction(CCUCMBuildAction.class), LastBaselineIndex.getLastAction(project(b1, changed)));
+    }
+}
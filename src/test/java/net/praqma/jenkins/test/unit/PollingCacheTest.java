@@ -0,0 +1,202 @@
+package net.praqma.jenkins.test.unit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Component;
+import net.praqma.clearcase.ucm.entities.Project;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.hudson.scm.PollingCache;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class PollingCacheTest {
+
+    private final PollingCache cache = PollingCache.getInstance();
+
+    private final Baseline baseline = mock(Baseline.class);
+
+    @Before
+    public void clear() {
+        cache.clear();
+    }
+
+    private PollingCache.Loader loader(final AtomicInteger loads) {
+        return new PollingCache.Loader() {
+            @Override
+            public List<Baseline> load() throws IOException, InterruptedException {
+                loads.incrementAndGet();
+                return Collections.singletonList(baseline);
+            }
+        };
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final PollingCache.Loader slow = new PollingCache.Loader() {
+            @Override
+            public List<Baseline> load() throws IOException, InterruptedException {
+                loads.incrementAndGet();
+                assertTrue(release.await(10, TimeUnit.SECONDS));
+                return Collections.singletonList(baseline);
+            }
+        };
+
+        long joined = cache.getJoined();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Baseline>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(new Callable<List<Baseline>>() {
+                    @Override
+                    public List<Baseline> call() throws Exception {
+                        return cache.get("key", 60000, slow);
+                    }
+                }));
+            }
+
+            /* Let the other lookups find the query in flight */
+            long deadline = System.currentTimeMillis() + 10000;
+            while (cache.getJoined() - joined < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<List<Baseline>> future : futures) {
+                assertEquals(Collections.singletonList(baseline), future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(3, cache.getJoined() - joined);
+    }
+
+    @Test
+    public void testTimeToLive() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        long hits = cache.getHits();
+
+        cache.get("key", 100, loader(loads));
+        cache.get("key", 100, loader(loads));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits() - hits);
+
+        Thread.sleep(200);
+        cache.get("key", 100, loader(loads));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("key", 0, loader(loads));
+        cache.get("key", 0, loader(loads));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws Exception {
+        try {
+            cache.get("key", 60000, new PollingCache.Loader() {
+                @Override
+                public List<Baseline> load() throws IOException, InterruptedException {
+                    throw new IOException("cleartool failed");
+                }
+            });
+            fail("The failure was not thrown");
+        } catch (IOException e) {
+            assertEquals("cleartool failed", e.getMessage());
+        }
+
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(Collections.singletonList(baseline), cache.get("key", 60000, loader(loads)));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testJoinerTakesOverInterruptedQuery() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final PollingCache.Loader blocking = new PollingCache.Loader() {
+            @Override
+            public List<Baseline> load() throws IOException, InterruptedException {
+                started.countDown();
+                Thread.sleep(10000);
+                return Collections.emptyList();
+            }
+        };
+
+        long joined = cache.getJoined();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Baseline>> owner = executor.submit(new Callable<List<Baseline>>() {
+                @Override
+                public List<Baseline> call() throws Exception {
+                    return cache.get("key", 60000, blocking);
+                }
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            final AtomicInteger loads = new AtomicInteger();
+            Future<List<Baseline>> joiner = executor.submit(new Callable<List<Baseline>>() {
+                @Override
+                public List<Baseline> call() throws Exception {
+                    return cache.get("key", 60000, loader(loads));
+                }
+            });
+            long deadline = System.currentTimeMillis() + 10000;
+            while (cache.getJoined() == joined && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            /* Interrupt the owner, as a polling timeout does */
+            owner.cancel(true);
+            assertEquals(Collections.singletonList(baseline), joiner.get(10, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCallersGetCopies() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("key", 60000, loader(loads)).clear();
+        assertEquals(Collections.singletonList(baseline), cache.get("key", 60000, loader(loads)));
+    }
+
+    @Test
+    public void testKey() {
+        Stream stream = mock(Stream.class);
+        when(stream.getFullyQualifiedName()).thenReturn("stream:s1@\\pvob");
+        Component component = mock(Component.class);
+        when(component.getFullyQualifiedName()).thenReturn("component:c1@\\pvob");
+
+        String key = PollingCache.key(stream, component, Project.PromotionLevel.INITIAL, false, new Date(1000), false);
+        assertEquals(key, PollingCache.key(stream, component, Project.PromotionLevel.INITIAL, false, new Date(1000), false));
+        assertFalse(key.equals(PollingCache.key(stream, null, Project.PromotionLevel.INITIAL, false, new Date(1000), false)));
+        assertFalse(key.equals(PollingCache.key(stream, component, null, false, new Date(1000), false)));
+        assertFalse(key.equals(PollingCache.key(stream, component, Project.PromotionLevel.INITIAL, false, new Date(2000), false)));
+        assertFalse(key.equals(PollingCache.key(stream, component, Project.PromotionLevel.INITIAL, false, null, false)));
+        assertFalse(key.equals(PollingCache.key(stream, component, Project.PromotionLevel.INITIAL, false, new Date(1000), true)));
+    }
+}
@@ -0,0 +1,70 @@
+package net.praqma.jenkins.test.unit;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import net.praqma.hudson.remoting.PreparedView;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class PreparedViewTest {
+
+    private static final String F0 = "baseline:f0@\\pvob";
+    private static final String X = "baseline:x@\\pvob";
+    private static final String Y = "baseline:y@\\pvob";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File workspace;
+
+    @Before
+    public void setUp() throws Exception {
+        workspace = folder.newFolder("workspace");
+    }
+
+    @Test
+    public void testNotPrepared() {
+        assertNull(PreparedView.read(workspace));
+    }
+
+    @Test
+    public void testPreparedForAnotherBaseline() throws Exception {
+        PreparedView.prepare(workspace, X, F0);
+
+        /* The build of Y is not prepared, but still diffs from the foundation before the preparation rebased */
+        PreparedView marker = PreparedView.read(workspace);
+        assertFalse(marker.isFor(Y));
+        assertEquals(F0, marker.getFoundation());
+
+        PreparedView.clear(workspace);
+        assertNull(PreparedView.read(workspace));
+    }
+
+    @Test
+    public void testPreparedAgainKeepsFoundation() throws Exception {
+        PreparedView.prepare(workspace, X, F0);
+        /* The second preparation finds the stream already rebased to X */
+        PreparedView.prepare(workspace, Y, X);
+
+        PreparedView marker = PreparedView.read(workspace);
+        assertTrue(marker.isFor(Y));
+        assertFalse(marker.isFor(X));
+        assertEquals(Y, marker.getBaseline());
+        assertEquals(F0, marker.getFoundation());
+    }
+
+    @Test
+    public void testMalformedMarker() throws Exception {
+        Files.write(new File(workspace, "view.prepared").toPath(), X.getBytes("UTF-8"));
+        assertNull(PreparedView.read(workspace));
+
+        /* Preparing again starts over from the current foundation */
+        PreparedView.prepare(workspace, Y, X);
+        assertEquals(X, PreparedView.read(workspace).getFoundation());
+    }
+}
@@ -0,0 +1,138 @@
+package net.praqma.jenkins.test.unit;
+
+import hudson.util.XStream2;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Component;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.hudson.scm.SCMRevisionStateImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SCMRevisionStateImplTest {
+
+    private final Stream stream = stream("s1");
+    private final Component component = component("c1");
+
+    private static Stream stream(String name) {
+        Stream stream = mock(Stream.class);
+        when(stream.getFullyQualifiedName()).thenReturn("stream:" + name + "@\\pvob");
+        return stream;
+    }
+
+    private static Component component(String name) {
+        Component component = mock(Component.class);
+        when(component.getFullyQualifiedName()).thenReturn("component:" + name + "@\\pvob");
+        return component;
+    }
+
+    private static Baseline baseline(String name, Date date) {
+        Baseline baseline = mock(Baseline.class);
+        when(baseline.getFullyQualifiedName()).thenReturn("baseline:" + name + "@\\pvob");
+        when(baseline.getDate()).thenReturn(date);
+        return baseline;
+    }
+
+    @Test
+    public void testPastWatermark() {
+        Baseline b1 = baseline("b1", new Date(1000));
+        Baseline b2 = baseline("b2", new Date(2000));
+        Baseline sameTime = baseline("b2b", new Date(2000));
+        Baseline b3 = baseline("b3", new Date(3000));
+        Baseline undated = baseline("undated", null);
+        List<Baseline> baselines = Arrays.asList(b1, b2, sameTime, b3, undated);
+
+        SCMRevisionStateImpl state = new SCMRevisionStateImpl();
+        assertSame(baselines, state.pastWatermark(stream, component, baselines));
+
+        state.record(stream, component, b2);
+        assertEquals(Arrays.asList(sameTime, b3, undated), state.pastWatermark(stream, component, baselines));
+
+        /* The watermark is kept per stream and component */
+        assertSame(baselines, state.pastWatermark(stream, null, baselines));
+        assertSame(baselines, state.pastWatermark(stream("s2"), component, baselines));
+    }
+
+    @Test
+    public void testBuiltTieNoLongerPasses() {
+        Baseline b2 = baseline("b2", new Date(2000));
+        Baseline sameTime = baseline("b2b", new Date(2000));
+        Baseline alsoSameTime = baseline("b2c", new Date(2000));
+        List<Baseline> baselines = Arrays.asList(b2, sameTime, alsoSameTime);
+
+        SCMRevisionStateImpl state = new SCMRevisionStateImpl();
+        state.record(stream, component, b2);
+        SCMRevisionStateImpl before = new SCMRevisionStateImpl(state);
+
+        state.record(stream, component, sameTime);
+        assertEquals(Collections.singletonList(alsoSameTime), state.pastWatermark(stream, component, baselines));
+        assertEquals("baseline:b2@\\pvob", state.getWatermark(stream, component).getBaseline());
+
+        /* A copied state keeps its own watermark */
+        assertEquals(Arrays.asList(sameTime, alsoSameTime), before.pastWatermark(stream, component, baselines));
+
+        /* A later baseline starts over */
+        Baseline b3 = baseline("b3", new Date(3000));
+        Baseline b3b = baseline("b3b", new Date(3000));
+        state.record(stream, component, b3);
+        assertEquals(Collections.singletonList(b3b), state.pastWatermark(stream, component, Arrays.asList(b2, sameTime, b3, b3b)));
+    }
+
+    @Test
+    public void testRecordOnlyMovesForward() {
+        SCMRevisionStateImpl state = new SCMRevisionStateImpl();
+        state.record(stream, component, baseline("b2", new Date(2000)));
+        state.record(stream, component, baseline("b1", new Date(1000)));
+        state.record(stream, component, baseline("undated", null));
+
+        assertEquals(new Date(2000), state.getDate(stream, component));
+        assertEquals("baseline:b2@\\pvob", state.getWatermark(stream, component).getBaseline());
+        assertEquals(Collections.singletonMap("stream:s1@\\pvob", new Date(2000)), state.getDates(component));
+        assertTrue(state.getDates(null).isEmpty());
+    }
+
+    @Test
+    public void testLatest() {
+        Date d1 = new Date(1000);
+        Date d2 = new Date(2000);
+
+        assertNull(SCMRevisionStateImpl.latest(null, null));
+        assertSame(d1, SCMRevisionStateImpl.latest(d1, null));
+        assertSame(d1, SCMRevisionStateImpl.latest(null, d1));
+        assertSame(d2, SCMRevisionStateImpl.latest(d1, d2));
+        assertSame(d2, SCMRevisionStateImpl.latest(d2, d1));
+    }
+
+    @Test
+    public void testCopyWatermarks() {
+        SCMRevisionStateImpl state = new SCMRevisionStateImpl();
+        state.record(stream, component, baseline("b1", new Date(1000)));
+
+        SCMRevisionStateImpl copy = new SCMRevisionStateImpl(state);
+        assertEquals(new Date(1000), copy.getDate(stream, component));
+
+        copy.record(stream, component, baseline("b2", new Date(2000)));
+        assertEquals(new Date(2000), copy.getDate(stream, component));
+        assertEquals(new Date(1000), state.getDate(stream, component));
+
+        assertNull(new SCMRevisionStateImpl(null).getDate(stream, component));
+    }
+
+    @Test
+    public void testLoadStateWithoutWatermarks() {
+        /* A state saved before the watermarks were introduced */
+        SCMRevisionStateImpl state = (SCMRevisionStateImpl) new XStream2().fromXML("<net.praqma.hudson.scm.SCMRevisionStateImpl/>");
+
+        assertNull(state.getDate(stream, component));
+        SCMRevisionStateImpl copy = new SCMRevisionStateImpl(state);
+        copy.record(stream, component, baseline("b1", new Date(1000)));
+        assertEquals(new Date(1000), copy.getDate(stream, component));
+    }
+}
@@ -0,0 +1,113 @@
+package net.praqma.jenkins.test.unit;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.hudson.scm.StreamActivityTracker;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class StreamActivityTrackerTest {
+
+    private static final long MIN = 60000;
+    private static final long MAX = 3600000;
+
+    private final StreamActivityTracker tracker = StreamActivityTracker.getInstance();
+
+    private static Baseline baseline(long date) {
+        Baseline baseline = mock(Baseline.class);
+        when(baseline.getDate()).thenReturn(new Date(date));
+        return baseline;
+    }
+
+    private int getArrivals(String job, String stream) {
+        for (StreamActivityTracker.Activity activity : tracker.getActivity(job, MIN, MAX)) {
+            if (activity.getStream().equals(stream)) {
+                return activity.getArrivals();
+            }
+        }
+        fail(job + " did not poll " + stream);
+        return 0;
+    }
+
+    @Test
+    public void testOnlyNewerBaselinesArrive() {
+        String stream = "stream:arrivals@\\pvob";
+        Baseline b1 = baseline(1000);
+        Baseline b2 = baseline(2000);
+
+        tracker.polled("arrivals", stream, Collections.<Baseline>emptyList());
+        assertEquals(0, getArrivals("arrivals", stream));
+        assertNull(tracker.getActivity("arrivals", MIN, MAX).get(0).getLastArrival());
+
+        tracker.polled("arrivals", stream, Collections.singletonList(b1));
+        assertEquals(1, getArrivals("arrivals", stream));
+
+        /* The baseline is found again until it is built */
+        tracker.polled("arrivals", stream, Collections.singletonList(b1));
+        assertEquals(1, getArrivals("arrivals", stream));
+
+        tracker.polled("arrivals", stream, Arrays.asList(b1, b2));
+        assertEquals(2, getArrivals("arrivals", stream));
+        assertNotNull(tracker.getActivity("arrivals", MIN, MAX).get(0).getLastArrival());
+    }
+
+    @Test
+    public void testArrivalsAreSharedByJobs() {
+        String stream = "stream:shared@\\pvob";
+        List<Baseline> found = Collections.singletonList(baseline(1000));
+
+        tracker.polled("shared1", stream, found);
+        tracker.polled("shared2", stream, found);
+        assertEquals(1, getArrivals("shared1", stream));
+        assertEquals(1, getArrivals("shared2", stream));
+    }
+
+    @Test
+    public void testDue() {
+        String stream = "stream:due@\\pvob";
+        assertTrue(tracker.isDue("due", stream, MIN, MAX));
+
+        tracker.polled("due", stream, Collections.<Baseline>emptyList());
+        assertFalse(tracker.isDue("due", stream, MIN, MAX));
+        assertEquals(Collections.singleton(stream), tracker.getNotDue("due", MIN, MAX));
+        assertTrue(tracker.isDue("due", stream, 0, 0));
+        assertEquals(MIN, tracker.getInterval(stream, MIN, MAX));
+    }
+
+    @Test
+    public void testForget() {
+        String stream = "stream:forget@\\pvob";
+        String kept = "stream:kept@\\pvob";
+        tracker.polled("forget1", stream, Collections.singletonList(baseline(1000)));
+        tracker.polled("forget1", kept, Collections.singletonList(baseline(1000)));
+        tracker.polled("forget2", kept, Collections.<Baseline>emptyList());
+
+        tracker.forget("forget1");
+        assertTrue(tracker.getActivity("forget1", MIN, MAX).isEmpty());
+        assertTrue(tracker.isDue("forget1", stream, MIN, MAX));
+
+        /* The activity of a stream still polled by another job is kept */
+        assertEquals(1, getArrivals("forget2", kept));
+
+        /* The activity of a stream no job polls is gone, the same baseline arrives again */
+        tracker.polled("forget3", stream, Collections.singletonList(baseline(1000)));
+        assertEquals(1, getArrivals("forget3", stream));
+    }
+
+    @Test
+    public void testMoved() {
+        String stream = "stream:moved@\\pvob";
+        tracker.polled("before", stream, Collections.singletonList(baseline(1000)));
+
+        tracker.moved("before", "after");
+        assertTrue(tracker.getActivity("before", MIN, MAX).isEmpty());
+        assertEquals(1, getArrivals("after", stream));
+        assertFalse(tracker.isDue("after", stream, MIN, MAX));
+    }
+}
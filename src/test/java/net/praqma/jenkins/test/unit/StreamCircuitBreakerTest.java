@@ -0,0 +1,111 @@
+package net.praqma.jenkins.test.unit;
+
+import java.util.Collections;
+import java.util.List;
+
+import net.praqma.hudson.scm.StreamCircuitBreaker;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StreamCircuitBreakerTest {
+
+    private static final String STREAM = "stream:s1@\\pvob";
+
+    private static StreamCircuitBreaker.Status getStatus(StreamCircuitBreaker breaker) {
+        List<StreamCircuitBreaker.Status> status = breaker.getStatus(Collections.singleton(STREAM));
+        return status.isEmpty() ? null : status.get(0);
+    }
+
+    /**
+     * @return The time until the breaker is retried, in milliseconds
+     */
+    private static long getBackoff(StreamCircuitBreaker breaker) {
+        return getStatus(breaker).getRetry().getTime() - System.currentTimeMillis();
+    }
+
+    @Test
+    public void testOpensAfterThreshold() {
+        StreamCircuitBreaker breaker = new StreamCircuitBreaker();
+
+        breaker.failure(STREAM, "Locked");
+        assertEquals(StreamCircuitBreaker.State.CLOSED, getStatus(breaker).getState());
+        assertNull(getStatus(breaker).getRetry());
+        assertTrue(breaker.getOpen().isEmpty());
+
+        breaker.failure(STREAM, "Still locked");
+        assertEquals(StreamCircuitBreaker.State.OPEN, getStatus(breaker).getState());
+        assertEquals(StreamCircuitBreaker.THRESHOLD, getStatus(breaker).getFailures());
+        assertEquals("Still locked", getStatus(breaker).getError());
+        assertEquals(Collections.singleton(STREAM), breaker.getOpen());
+    }
+
+    @Test
+    public void testBackoffDoubles() {
+        StreamCircuitBreaker breaker = new StreamCircuitBreaker(60000, 200000);
+
+        breaker.failure(STREAM, "Locked");
+        breaker.failure(STREAM, "Locked");
+        long first = getBackoff(breaker);
+        assertTrue(first > 50000 && first <= 60000);
+
+        breaker.failure(STREAM, "Locked");
+        long second = getBackoff(breaker);
+        assertTrue(second > 110000 && second <= 120000);
+
+        /* Capped at the maximum backoff */
+        for (int i = 0; i < 40; i++) {
+            breaker.failure(STREAM, "Locked");
+        }
+        long last = getBackoff(breaker);
+        assertTrue(last > 190000 && last <= 200000);
+    }
+
+    @Test
+    public void testHalfOpen() throws Exception {
+        StreamCircuitBreaker breaker = new StreamCircuitBreaker(100, 1000);
+
+        breaker.failure(STREAM, "Locked");
+        breaker.failure(STREAM, "Locked");
+        assertEquals(Collections.singleton(STREAM), breaker.getOpen());
+
+        /* When the backoff has passed, the stream is scanned again */
+        Thread.sleep(200);
+        assertEquals(StreamCircuitBreaker.State.HALF_OPEN, getStatus(breaker).getState());
+        assertTrue(breaker.getOpen().isEmpty());
+
+        /* A failing retry opens the breaker again, for longer */
+        breaker.failure(STREAM, "Locked");
+        assertEquals(StreamCircuitBreaker.State.OPEN, getStatus(breaker).getState());
+        assertTrue(getBackoff(breaker) > 100);
+
+        /* A successful retry closes it */
+        Thread.sleep(300);
+        assertEquals(StreamCircuitBreaker.State.HALF_OPEN, getStatus(breaker).getState());
+        breaker.success(STREAM);
+        assertNull(getStatus(breaker));
+        assertTrue(breaker.getOpen().isEmpty());
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        StreamCircuitBreaker breaker = new StreamCircuitBreaker();
+
+        breaker.failure(STREAM, "Locked");
+        breaker.success(STREAM);
+        breaker.failure(STREAM, "Locked");
+        assertEquals(StreamCircuitBreaker.State.CLOSED, getStatus(breaker).getState());
+        assertEquals(1, getStatus(breaker).getFailures());
+    }
+
+    @Test
+    public void testReset() {
+        StreamCircuitBreaker breaker = new StreamCircuitBreaker();
+
+        breaker.failure(STREAM, "Locked");
+        breaker.failure(STREAM, "Locked");
+        breaker.reset(STREAM);
+        assertNull(getStatus(breaker));
+        assertTrue(breaker.getOpen().isEmpty());
+    }
+}
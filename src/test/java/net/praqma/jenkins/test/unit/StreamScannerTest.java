@@ -0,0 +1,132 @@
+package net.praqma.jenkins.test.unit;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.praqma.clearcase.ucm.entities.Baseline;
+import net.praqma.clearcase.ucm.entities.Stream;
+import net.praqma.hudson.scm.StreamScanResult;
+import net.praqma.hudson.scm.StreamScanner;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class StreamScannerTest {
+
+    private static Stream stream(String name) {
+        Stream stream = mock(Stream.class);
+        when(stream.getFullyQualifiedName()).thenReturn("stream:" + name + "@\\pvob");
+        return stream;
+    }
+
+    private static Baseline baseline(String name, long date) {
+        Baseline baseline = mock(Baseline.class);
+        when(baseline.getFullyQualifiedName()).thenReturn("baseline:" + name + "@\\pvob");
+        when(baseline.getDate()).thenReturn(new Date(date));
+        return baseline;
+    }
+
+    @Test
+    public void testResultsInStreamOrder() throws Exception {
+        final Stream s1 = stream("s1");
+        final Stream s2 = stream("s2");
+        final Stream s3 = stream("s3");
+        final Baseline b1 = baseline("b1", 1000);
+        final Baseline b2 = baseline("b2", 2000);
+        final Baseline b3 = baseline("b3", 3000);
+
+        /* The first stream is the last to finish */
+        final CountDownLatch others = new CountDownLatch(2);
+        List<StreamScanResult> results = new StreamScanner(3).scan(Arrays.asList(s1, s2, s3), new StreamScanner.BaselineLister() {
+            @Override
+            public List<Baseline> list(Stream stream) throws IOException, InterruptedException {
+                if (stream == s1) {
+                    assertTrue(others.await(10, TimeUnit.SECONDS));
+                    return Collections.singletonList(b1);
+                }
+                others.countDown();
+                return Collections.singletonList(stream == s2 ? b2 : b3);
+            }
+        });
+
+        assertEquals(3, results.size());
+        assertSame(s1, results.get(0).getStream());
+        assertSame(s2, results.get(1).getStream());
+        assertSame(s3, results.get(2).getStream());
+        assertEquals(Collections.singletonList(b1), results.get(0).getBaselines());
+        assertEquals(Collections.singletonList(b2), results.get(1).getBaselines());
+        assertEquals(Collections.singletonList(b3), results.get(2).getBaselines());
+    }
+
+    @Test
+    public void testFailureDoesNotAffectOthers() throws Exception {
+        final Stream s1 = stream("s1");
+        final Stream s2 = stream("s2");
+        final Baseline b2 = baseline("b2", 2000);
+
+        for (int concurrency : new int[]{1, 2}) {
+            List<StreamScanResult> results = new StreamScanner(concurrency).scan(Arrays.asList(s1, s2), new StreamScanner.BaselineLister() {
+                @Override
+                public List<Baseline> list(Stream stream) throws IOException, InterruptedException {
+                    if (stream == s1) {
+                        throw new IOException("Listing failed", new IllegalStateException("No such stream"));
+                    }
+                    return Collections.singletonList(b2);
+                }
+            });
+
+            assertTrue(results.get(0).isFailed());
+            assertEquals("No such stream", results.get(0).getError());
+            assertTrue(results.get(0).getBaselines().isEmpty());
+            assertFalse(results.get(1).isFailed());
+            assertEquals(Collections.singletonList(b2), results.get(1).getBaselines());
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final Stream s1 = stream("s1");
+        final Stream s2 = stream("s2");
+        final Baseline b2 = baseline("b2", 2000);
+
+        long start = System.currentTimeMillis();
+        List<StreamScanResult> results = new StreamScanner(2, 1000).scan(Arrays.asList(s1, s2), new StreamScanner.BaselineLister() {
+            @Override
+            public List<Baseline> list(Stream stream) throws IOException, InterruptedException {
+                if (stream == s1) {
+                    Thread.sleep(60000);
+                }
+                return Collections.singletonList(b2);
+            }
+        });
+
+        assertTrue(System.currentTimeMillis() - start < 30000);
+        assertTrue(results.get(0).isFailed());
+        assertEquals("Timed out after 1 seconds", results.get(0).getError());
+        assertFalse(results.get(1).isFailed());
+        assertEquals(Collections.singletonList(b2), results.get(1).getBaselines());
+    }
+
+    @Test
+    public void testMergeOrdersByDateThenName() {
+        Stream s1 = stream("s1");
+        Stream s2 = stream("s2");
+        Baseline late = baseline("late", 3000);
+        Baseline b = baseline("b", 2000);
+        Baseline a = baseline("a", 2000);
+        Baseline early = baseline("early", 1000);
+
+        List<Baseline> merged = StreamScanner.merge(Arrays.asList(
+                StreamScanResult.found(s1, Arrays.asList(late, b)),
+                StreamScanResult.failed(s2, "Failed"),
+                StreamScanResult.found(s2, Arrays.asList(early, a))));
+
+        assertEquals(Arrays.asList(early, a, b, late), merged);
+    }
+}
@@ -0,0 +1,75 @@
+package net.praqma.jenkins.test.unit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.praqma.clearcase.ucm.entities.Version;
+import net.praqma.hudson.Util;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class UtilBlameTest {
+
+    private static Version version(String name) {
+        Version version = mock(Version.class);
+        when(version.getFullyQualifiedName()).thenReturn(name);
+        return version;
+    }
+
+    private static List<Version> versions(int count, int length) {
+        List<Version> versions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = "file" + i + "@@\\main\\1";
+            versions.add(version(name + StringUtils.repeat("x", Math.max(0, length - name.length()))));
+        }
+        return versions;
+    }
+
+    private static List<Integer> sizes(List<List<String>> chunks) {
+        List<Integer> sizes = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            sizes.add(chunk.size());
+        }
+        return sizes;
+    }
+
+    @Test
+    public void testChunksByCount() {
+        List<List<String>> chunks = Util.getBlameChunks(versions(2 * Util.BLAME_CHUNK + 50, 20));
+        assertEquals(Arrays.asList(Util.BLAME_CHUNK, Util.BLAME_CHUNK, 50), sizes(chunks));
+        assertEquals("file0@@\\main\\1xxxxxx", chunks.get(0).get(0));
+        assertTrue(chunks.get(2).get(49).startsWith("file249@@"));
+    }
+
+    @Test
+    public void testChunksByCommandLength() {
+        /* Each name takes 1000 characters on the command line with its quotes and space */
+        List<List<String>> chunks = Util.getBlameChunks(versions(20, 997));
+        assertEquals(Arrays.asList(7, 7, 6), sizes(chunks));
+    }
+
+    @Test
+    public void testLongNameGetsItsOwnChunk() {
+        List<Version> versions = new ArrayList<>();
+        versions.add(version("short1"));
+        versions.add(version(StringUtils.repeat("x", Util.BLAME_COMMAND_LENGTH + 1)));
+        versions.add(version("short2"));
+
+        assertEquals(Arrays.asList(1, 1, 1), sizes(Util.getBlameChunks(versions)));
+    }
+
+    @Test
+    public void testDuplicatesAreDescribedOnce() {
+        List<Version> versions = Arrays.asList(version("a@@\\main\\1"), version("b@@\\main\\1"), version("a@@\\main\\1"));
+        assertEquals(Arrays.asList(Arrays.asList("a@@\\main\\1", "b@@\\main\\1")), Util.getBlameChunks(versions));
+    }
+
+    @Test
+    public void testNoVersions() {
+        assertTrue(Util.getBlameChunks(new ArrayList<Version>()).isEmpty());
+    }
+}